@@ -0,0 +1,286 @@
+package services.billservice;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bson.Document;
+
+/**
+ * Exports the bill tables of many customer collections into one CSV or JSONL
+ * file. Collections are aggregated in parallel on a bounded pool and their
+ * rows, encoded with the billTable mapping, are merged by a single writer.
+ * Sections of different collections interleave, so a collection that fails
+ * keeps the rows already written and is closed by a failure marker line.
+ */
+public class BillExportEngine {
+    private static final int BATCH_SIZE = 1000;
+    private static final int ROWS_PER_CHUNK = 500;
+    private static final int QUEUED_CHUNKS = 64;
+    private static final String[] CSV_HEADER = {"collection", "id", "status", "vendorName", "product",
+            "generatedTime", "interestTime", "totalAmount", "totalAmountPaid", "totalAmountRemaining", "vId",
+            "contractId", "cId", "type"};
+
+    public enum Format { CSV, JSONL }
+
+    public enum State { PENDING, RUNNING, DONE, FAILED }
+
+    private final MongoDatabase customerRepoDb;
+    private final BillRowEncoder billRowEncoder = new BillRowEncoder();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final int parallelism;
+
+    public BillExportEngine(MongoDatabase customerRepoDb, int parallelism) {
+        this.customerRepoDb = customerRepoDb;
+        this.parallelism = parallelism;
+    }
+
+    public Map<String, CollectionProgress> export(List<String> collectionNames, List<Document> query, Format format,
+                                                  Path target) throws IOException, InterruptedException {
+        Export export = start(collectionNames, query, format, target);
+        try {
+            return export.await();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public Export start(List<String> collectionNames, List<Document> query, Format format, Path target) {
+        Map<String, CollectionProgress> progress = new LinkedHashMap<>();
+        for (String collectionName : collectionNames) {
+            if (progress.put(collectionName, new CollectionProgress()) != null) {
+                throw new IllegalArgumentException("Collection listed more than once: " + collectionName);
+            }
+        }
+        Export export = new Export(Collections.unmodifiableMap(progress));
+        Thread writer = new Thread(() -> {
+            try {
+                write(collectionNames, query, format, target, export.progress);
+                export.completion.complete(export.progress);
+            } catch (IOException | RuntimeException e) {
+                export.completion.completeExceptionally(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                export.completion.completeExceptionally(e);
+            }
+        }, "bill-export-writer");
+        writer.start();
+        return export;
+    }
+
+    private void write(List<String> collectionNames, List<Document> query, Format format, Path target,
+                       Map<String, CollectionProgress> progress) throws IOException, InterruptedException {
+        BlockingQueue<String> chunks = new ArrayBlockingQueue<>(QUEUED_CHUNKS);
+        AtomicInteger runningExports = new AtomicInteger(collectionNames.size());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                writer.write(toCsvLine(CSV_HEADER));
+            }
+            for (String collectionName : collectionNames) {
+                executor.execute(() -> {
+                    try {
+                        exportCollection(collectionName, query, format, progress.get(collectionName), chunks);
+                    } finally {
+                        runningExports.decrementAndGet();
+                    }
+                });
+            }
+            while (runningExports.get() > 0 || !chunks.isEmpty()) {
+                String chunk = chunks.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    writer.write(chunk);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void exportCollection(String collectionName, List<Document> query, Format format,
+                                  CollectionProgress progress, BlockingQueue<String> chunks) {
+        progress.start();
+        String[] row = new String[BillRowEncoder.COLUMNS + 1];
+        row[0] = collectionName;
+        String[] encodedRow = new String[BillRowEncoder.COLUMNS];
+        StringBuilder chunk = new StringBuilder();
+        int rowsInChunk = 0;
+        try (MongoCursor<Document> cursor = customerRepoDb.getCollection(collectionName).aggregate(query)
+                .batchSize(BATCH_SIZE).iterator()) {
+            while (cursor.hasNext()) {
+                billRowEncoder.encode(cursor.next(), encodedRow);
+                System.arraycopy(encodedRow, 0, row, 1, encodedRow.length);
+                chunk.append(format == Format.CSV ? toCsvLine(row) : toJsonLine(row));
+                if (++rowsInChunk == ROWS_PER_CHUNK) {
+                    chunks.put(chunk.toString());
+                    progress.rows.addAndGet(rowsInChunk);
+                    chunk.setLength(0);
+                    rowsInChunk = 0;
+                }
+            }
+            if (rowsInChunk > 0) {
+                chunks.put(chunk.toString());
+                progress.rows.addAndGet(rowsInChunk);
+            }
+            progress.finish(State.DONE, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.finish(State.FAILED, "Interrupted");
+            chunks.offer(toFailureLine(collectionName, format, progress));
+        } catch (RuntimeException e) {
+            progress.finish(State.FAILED, String.valueOf(e.getMessage()));
+            try {
+                chunks.put(toFailureLine(collectionName, format, progress));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private String toFailureLine(String collectionName, Format format, CollectionProgress progress) {
+        String[] marker = new String[BillRowEncoder.COLUMNS + 1];
+        marker[0] = collectionName;
+        marker[1] = "EXPORT_FAILED";
+        marker[2] = progress.getRows() + " rows written";
+        marker[3] = progress.getError();
+        if (format == Format.CSV) {
+            return toCsvLine(marker);
+        }
+        StringWriter line = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeStringField("collection", collectionName);
+            generator.writeBooleanField("failed", true);
+            generator.writeNumberField("rowsWritten", progress.getRows());
+            generator.writeStringField("error", progress.getError());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * A running export. progress() is live and can be polled while the
+     * export runs; await() blocks until the file is complete.
+     */
+    public static class Export {
+        private final Map<String, CollectionProgress> progress;
+        private final CompletableFuture<Map<String, CollectionProgress>> completion = new CompletableFuture<>();
+
+        Export(Map<String, CollectionProgress> progress) {
+            this.progress = progress;
+        }
+
+        public Map<String, CollectionProgress> progress() {
+            return progress;
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        public CompletionStage<Map<String, CollectionProgress>> completion() {
+            return completion;
+        }
+
+        public Map<String, CollectionProgress> await() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+    }
+
+    private String toCsvLine(String[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String value = values[i] == null ? "" : values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                    || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    private String toJsonLine(String[] values) {
+        StringWriter line = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(line)) {
+            generator.setRootValueSeparator(new SerializedString(""));
+            generator.writeStartObject();
+            generator.writeStringField("collection", values[0]);
+            generator.writeArrayFieldStart("row");
+            for (int i = 1; i < values.length; i++) {
+                generator.writeString(values[i]);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.append('\n').toString();
+    }
+
+    public static class CollectionProgress {
+        private final AtomicLong rows = new AtomicLong();
+        private volatile State state = State.PENDING;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile String error;
+
+        void start() {
+            startedAt = System.currentTimeMillis();
+            state = State.RUNNING;
+        }
+
+        void finish(State finalState, String failure) {
+            finishedAt = System.currentTimeMillis();
+            error = failure;
+            state = finalState;
+        }
+
+        public long getRows() {
+            return rows.get();
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public long getElapsedMillis() {
+            return startedAt == 0 ? 0 : (finishedAt == 0 ? System.currentTimeMillis() : finishedAt) - startedAt;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package services.billservice;
+
+import constants.PaymentStatus;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import org.bson.Document;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import util.Operations;
+
+public class BillRowEncoder {
+    public static final int COLUMNS = 13;
+    private static final String DATE_PATTERN = "dd-MM-YYYY";
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final int CACHED_EPOCH_DAYS = 366 * 130;
+    private static final int CACHED_STATUS_IDS = 64;
+    private static final double MAX_PLAIN_DECIMAL = 1e7;
+
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeZone zone;
+    private final String[] datesByEpochDay = new String[CACHED_EPOCH_DAYS];
+    private final String[] statusLabels = new String[CACHED_STATUS_IDS];
+
+    public BillRowEncoder() {
+        this(DateTimeZone.getDefault());
+    }
+
+    public BillRowEncoder(DateTimeZone zone) {
+        this.zone = zone;
+        this.dateFormatter = DateTimeFormat.forPattern(DATE_PATTERN).withZone(zone);
+    }
+
+    public ArrayList<String> encode(Document document) {
+        String[] row = new String[COLUMNS];
+        encode(document, row);
+        return new ArrayList<>(Arrays.asList(row));
+    }
+
+    public void encode(Document document, String[] row) {
+        String contractId = document.getString("contractId");
+        row[0] = document.getString("id");
+        row[1] = formatStatus(document.getInteger("status"));
+        row[2] = upperCase(document.getString("vendorName"));
+        row[3] = upperCase(stringOrEmpty(document.getString("product")));
+        row[4] = formatDate(document.getDate("generatedTime"));
+        row[5] = formatDate(document.getDate("interestTime"));
+        row[6] = formatAmount(document.getDouble("totalAmount"));
+        row[7] = formatAmount(document.getDouble("totalAmountPaid"));
+        row[8] = formatAmount(document.getDouble("totalAmountRemaining"));
+        row[9] = upperCase(document.getString("vId"));
+        row[10] = contractId;
+        row[11] = document.getString("cId").toLowerCase(Locale.ROOT);
+        row[12] = contractId.contains("FTL") ? "FTL" : "LTL";
+    }
+
+    String formatDate(Date date) {
+        long millis = date == null ? System.currentTimeMillis() : date.getTime();
+        long epochDay = Math.floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+        if (epochDay < 0 || epochDay >= CACHED_EPOCH_DAYS) {
+            return dateFormatter.print(millis);
+        }
+        String formatted = datesByEpochDay[(int) epochDay];
+        if (formatted == null) {
+            formatted = dateFormatter.print(millis);
+            datesByEpochDay[(int) epochDay] = formatted;
+        }
+        return formatted;
+    }
+
+    String formatAmount(Double amount) {
+        double rounded = Operations.roundingToTwoDecimals(amount);
+        if (rounded == 0 || Double.isNaN(rounded) || Math.abs(rounded) >= MAX_PLAIN_DECIMAL) {
+            return rounded + "";
+        }
+        long cents = Math.round(Math.abs(rounded) * 100);
+        long whole = cents / 100;
+        int fraction = (int) (cents % 100);
+        StringBuilder formatted = new StringBuilder(16);
+        if (rounded < 0) {
+            formatted.append('-');
+        }
+        formatted.append(whole).append('.');
+        if (fraction == 0) {
+            formatted.append('0');
+        } else {
+            formatted.append((char) ('0' + fraction / 10));
+            if (fraction % 10 != 0) {
+                formatted.append((char) ('0' + fraction % 10));
+            }
+        }
+        return formatted.toString();
+    }
+
+    String formatStatus(Integer status) {
+        if (status == null || status < 0 || status >= CACHED_STATUS_IDS) {
+            return PaymentStatus.fromId(status);
+        }
+        String label = statusLabels[status];
+        if (label == null) {
+            label = PaymentStatus.fromId(status);
+            statusLabels[status] = label;
+        }
+        return label;
+    }
+
+    private String upperCase(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+
+    private String stringOrEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,190 @@
+package services.billservice;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+import util.BoundedCache;
+
+/**
+ * Bill table pages and counts keyed by collection and normalized query. Every
+ * collection carries a version that is bumped by the change stream on the
+ * customer repo database; entries cached under an older version are reloaded.
+ * The stream is opened on its own thread when the application starts and
+ * closed when it stops. Nothing is cached until it is open or while it is
+ * down, and entries expire after TTL_MILLIS regardless. A failed stream is
+ * reopened with exponential backoff and logged once until it recovers.
+ */
+@Singleton
+public class BillTableCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BillTableCache.class);
+    private static final int MAX_ENTRIES = 500;
+    private static final int MAX_CACHED_ROWS = 1000;
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long MIN_RETRY_DELAY_MILLIS = 1000;
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final Set<String> IGNORED_PARAMETERS = Set.of("draw", "_");
+
+    private final BoundedCache<String, VersionedResult> results = new BoundedCache<>(MAX_ENTRIES, TTL_MILLIS);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile boolean streamOpen;
+    private volatile boolean stopped;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private final ExecutorService changeStreamListener = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bill-table-change-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    public BillTableCache(MongoDatabase customerRepoDb, ApplicationLifecycle lifecycle) {
+        changeStreamListener.execute(() -> listen(customerRepoDb));
+        lifecycle.addStopHook(() -> {
+            stopped = true;
+            changeStreamListener.shutdownNow();
+            MongoChangeStreamCursor<ChangeStreamDocument<Document>> open = cursor;
+            if (open != null) {
+                closeQuietly(open);
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String collectionName, String view, String normalizedQuery, Supplier<T> loader) {
+        long version = currentVersion(collectionName).get();
+        if (!streamOpen) {
+            return loader.get();
+        }
+        String key = collectionName + '\u0000' + view + '\u0000' + normalizedQuery;
+        VersionedResult cached = results.get(key);
+        if (cached != null && cached.version == version) {
+            return (T) cached.result;
+        }
+        T result = loader.get();
+        if (isCacheable(result)) {
+            results.put(key, new VersionedResult(version, result));
+        }
+        return result;
+    }
+
+    public static String normalize(Map<String, String> formData) {
+        Map<String, String> normalized = new TreeMap<>(formData);
+        normalized.keySet().removeAll(IGNORED_PARAMETERS);
+        return normalized.toString();
+    }
+
+    private void listen(MongoDatabase customerRepoDb) {
+        BsonDocument resumeToken = null;
+        long retryDelay = MIN_RETRY_DELAY_MILLIS;
+        boolean failing = false;
+        while (!stopped) {
+            try {
+                if (cursor == null) {
+                    cursor = open(customerRepoDb, resumeToken);
+                    if (stopped) {
+                        break;
+                    }
+                    if (failing) {
+                        LOGGER.info("Bill table change stream reopened");
+                        failing = false;
+                    }
+                }
+                ChangeStreamDocument<Document> change = cursor.next();
+                resumeToken = change.getResumeToken();
+                retryDelay = MIN_RETRY_DELAY_MILLIS;
+                if (change.getNamespace() != null) {
+                    AtomicLong version = versions.get(change.getNamespace().getCollectionName());
+                    if (version != null) {
+                        version.incrementAndGet();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (stopped) {
+                    break;
+                }
+                if (!failing) {
+                    LOGGER.warn("Bill table change stream failed, bill tables are not cached until it reopens", e);
+                    failing = true;
+                }
+                if (cursor == null) {
+                    resumeToken = null;
+                } else {
+                    closeQuietly(cursor);
+                    cursor = null;
+                }
+                streamLost();
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+        streamOpen = false;
+        if (cursor != null) {
+            closeQuietly(cursor);
+            cursor = null;
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(MongoDatabase customerRepoDb,
+                                                                          BsonDocument resumeToken) {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = resumeToken == null
+                ? customerRepoDb.watch().cursor()
+                : customerRepoDb.watch().resumeAfter(resumeToken).cursor();
+        streamOpen = true;
+        return opened;
+    }
+
+    private void streamLost() {
+        streamOpen = false;
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        results.invalidateAll();
+    }
+
+    private void closeQuietly(MongoChangeStreamCursor<ChangeStreamDocument<Document>> changeStream) {
+        try {
+            changeStream.close();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Closing the bill table change stream failed", e);
+        }
+    }
+
+    private boolean isCacheable(Object result) {
+        return !(result instanceof Collection) || ((Collection<?>) result).size() <= MAX_CACHED_ROWS;
+    }
+
+    private AtomicLong currentVersion(String collectionName) {
+        return versions.computeIfAbsent(collectionName, name -> new AtomicLong());
+    }
+
+    private static class VersionedResult {
+        final long version;
+        final Object result;
+
+        VersionedResult(long version, Object result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import models.SendMyKartDAO;
+import play.inject.ApplicationLifecycle;
+import util.NearCache;
+
+/**
+ * Near-cache over the SendMyKartDAO company lookups used on every login and
+ * contract assignment. Nothing in the application calls the invalidate
+ * methods yet, so a changed mapping is served stale: entries are reloaded in
+ * the background on the first read after REFRESH_AFTER_MILLIS (30 minutes)
+ * and dropped after TTL_MILLIS (6 hours), which bounds how long an old value
+ * can be seen; a missing mapping is remembered for NEGATIVE_TTL_MILLIS (1
+ * minute). Code that changes a company mapping should call invalidateLogin
+ * or invalidateCompany so the change is seen on the next read.
+ */
+@Singleton
+public class CompanyLookupCache {
+    private static final int MAX_ENTRIES = 20000;
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    private static final long REFRESH_AFTER_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long NEGATIVE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ThreadPoolExecutor refresher = new ThreadPoolExecutor(1, 2, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256), runnable -> {
+                Thread thread = new Thread(runnable, "company-lookup-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    private final NearCache<String, String> vendorCompanyIdByLoginId;
+    private final NearCache<String, String> customerCompanyIdByLoginId;
+    private final NearCache<String, String> vendorCollectionIdByCompanyId;
+    private final NearCache<String, String> customerCollectionIdByCompanyId;
+    private final NearCache<String, String> customerCompanyNameByCompanyId;
+
+    @Inject
+    public CompanyLookupCache(SendMyKartDAO sendMyKartDAO, ApplicationLifecycle lifecycle) {
+        this.vendorCompanyIdByLoginId = newCache(sendMyKartDAO::getVendorCompanyIdFromLoginId);
+        this.customerCompanyIdByLoginId = newCache(sendMyKartDAO::getCustomerCompanyIdFromLoginId);
+        this.vendorCollectionIdByCompanyId = newCache(sendMyKartDAO::getVendorCollectionIdFromCompanyId);
+        this.customerCollectionIdByCompanyId = newCache(sendMyKartDAO::getCustomerCollectionIdFromCompanyId);
+        this.customerCompanyNameByCompanyId = newCache(sendMyKartDAO::getCustomerCompanyNameFromCompanyId);
+        lifecycle.addStopHook(() -> {
+            refresher.shutdownNow();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    public String getVendorCompanyIdFromLoginId(String loginId) {
+        return vendorCompanyIdByLoginId.get(loginId);
+    }
+
+    public String getCustomerCompanyIdFromLoginId(String loginId) {
+        return customerCompanyIdByLoginId.get(loginId);
+    }
+
+    public String getVendorCollectionIdFromCompanyId(String companyId) {
+        return vendorCollectionIdByCompanyId.get(companyId);
+    }
+
+    public String getCustomerCollectionIdFromCompanyId(String companyId) {
+        return customerCollectionIdByCompanyId.get(companyId);
+    }
+
+    public String getCustomerCompanyNameFromCompanyId(String companyId) {
+        return customerCompanyNameByCompanyId.get(companyId);
+    }
+
+    public void invalidateLogin(String loginId) {
+        vendorCompanyIdByLoginId.invalidate(loginId);
+        customerCompanyIdByLoginId.invalidate(loginId);
+    }
+
+    public void invalidateCompany(String companyId) {
+        vendorCollectionIdByCompanyId.invalidate(companyId);
+        customerCollectionIdByCompanyId.invalidate(companyId);
+        customerCompanyNameByCompanyId.invalidate(companyId);
+    }
+
+    public void invalidateAll() {
+        vendorCompanyIdByLoginId.invalidateAll();
+        customerCompanyIdByLoginId.invalidateAll();
+        vendorCollectionIdByCompanyId.invalidateAll();
+        customerCollectionIdByCompanyId.invalidateAll();
+        customerCompanyNameByCompanyId.invalidateAll();
+    }
+
+    private NearCache<String, String> newCache(Function<String, String> loader) {
+        return new NearCache<>(MAX_ENTRIES, TTL_MILLIS, REFRESH_AFTER_MILLIS, NEGATIVE_TTL_MILLIS, loader, refresher);
+    }
+}
@@ -0,0 +1,48 @@
+package models.fulltruckload;
+
+public class ContractApprovalResult {
+    private String contractId;
+    private boolean success;
+    private String message;
+
+    public ContractApprovalResult() {
+    }
+
+    private ContractApprovalResult(String contractId, boolean success, String message) {
+        this.contractId = contractId;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static ContractApprovalResult succeeded(String contractId, String customerResponse) {
+        return new ContractApprovalResult(contractId, true, customerResponse);
+    }
+
+    public static ContractApprovalResult failed(String contractId, String message) {
+        return new ContractApprovalResult(contractId, false, message);
+    }
+
+    public String getContractId() {
+        return contractId;
+    }
+
+    public void setContractId(String contractId) {
+        this.contractId = contractId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,68 @@
+package services.ftlcontractservices;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+
+/**
+ * Everything a contract approval changes, held back until the request has
+ * been prepared: the writes per database, the vendors it adds to the
+ * customer's contract list and the notifications to enqueue once the writes
+ * are stored. A contract is prepared into its own instance from forContract()
+ * and appended to the request's instance only if preparing it succeeded.
+ */
+class ContractApprovalWrites {
+    final ContractWriteBatch products = new ContractWriteBatch();
+    final ContractWriteBatch vendorRepo = new ContractWriteBatch();
+    final ContractWriteBatch couriers = new ContractWriteBatch();
+    final ContractWriteBatch customerRepo = new ContractWriteBatch();
+    private final ContractApprovalWrites parent;
+    private final List<String> addedVendorIds = new ArrayList<>();
+    private final List<Runnable> notifications = new ArrayList<>();
+
+    ContractApprovalWrites() {
+        this(null);
+    }
+
+    private ContractApprovalWrites(ContractApprovalWrites parent) {
+        this.parent = parent;
+    }
+
+    ContractApprovalWrites forContract() {
+        return new ContractApprovalWrites(this);
+    }
+
+    void addVendor(String vendorId) {
+        addedVendorIds.add(vendorId);
+    }
+
+    boolean isVendorAdded(String vendorId) {
+        return addedVendorIds.stream().anyMatch(added -> StringUtils.equalsIgnoreCase(added, vendorId))
+                || (parent != null && parent.isVendorAdded(vendorId));
+    }
+
+    void notifyAfterWrite(Runnable notification) {
+        notifications.add(notification);
+    }
+
+    void append(ContractApprovalWrites other) {
+        products.append(other.products);
+        vendorRepo.append(other.vendorRepo);
+        couriers.append(other.couriers);
+        customerRepo.append(other.customerRepo);
+        addedVendorIds.addAll(other.addedVendorIds);
+        notifications.addAll(other.notifications);
+        other.addedVendorIds.clear();
+        other.notifications.clear();
+    }
+
+    void applyAddedVendors(List<Document> vendors) {
+        addedVendorIds.forEach(vendorId -> vendors.add(new Document("vId", vendorId)));
+    }
+
+    void sendNotifications() {
+        notifications.forEach(Runnable::run);
+        notifications.clear();
+    }
+}
@@ -0,0 +1,77 @@
+package services.ftlcontractservices;
+
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.bson.Document;
+
+/**
+ * Collects the updates of a contract operation per collection and sends
+ * each collection's updates as a single ordered bulk write. An update that
+ * repeats the one queued just before it is dropped; repeats further apart
+ * are kept, since the writes in between may depend on them. flush() hands
+ * each collection to a DAO's bulkWriteIntoCollection(collectionName, writes),
+ * the method CouriersDBDao already has; ProductsDBDao, VendorRepoDBDao and
+ * CustomerRepoDBDao are expected to provide the same one, and to build the
+ * write models passed to add() for the updates they own.
+ */
+public class ContractWriteBatch {
+
+    private final Map<String, PendingWrites> writesByCollection = new LinkedHashMap<>();
+
+    public ContractWriteBatch updateOne(String collectionName, Document filter, Document update) {
+        writesByCollection.computeIfAbsent(collectionName, name -> new PendingWrites()).add(filter, update);
+        return this;
+    }
+
+    public ContractWriteBatch add(String collectionName, WriteModel<Document> write) {
+        writesByCollection.computeIfAbsent(collectionName, name -> new PendingWrites()).add(write);
+        return this;
+    }
+
+    public void append(ContractWriteBatch other) {
+        other.writesByCollection.forEach((collectionName, pending) -> writesByCollection
+                .computeIfAbsent(collectionName, name -> new PendingWrites()).addAll(pending));
+        other.writesByCollection.clear();
+    }
+
+    public boolean isEmpty() {
+        return writesByCollection.isEmpty();
+    }
+
+    public void flush(BiConsumer<String, List<WriteModel<Document>>> bulkWriter) {
+        writesByCollection.forEach((collectionName, pending) -> bulkWriter.accept(collectionName, pending.writes));
+        writesByCollection.clear();
+    }
+
+    private static class PendingWrites {
+        private final List<WriteModel<Document>> writes = new ArrayList<>();
+        private Document lastFilter;
+        private Document lastUpdate;
+
+        void add(Document filter, Document update) {
+            if (filter.equals(lastFilter) && update.equals(lastUpdate)) {
+                return;
+            }
+            writes.add(new UpdateOneModel<>(filter, update));
+            lastFilter = filter;
+            lastUpdate = update;
+        }
+
+        void add(WriteModel<Document> write) {
+            writes.add(write);
+            lastFilter = null;
+            lastUpdate = null;
+        }
+
+        void addAll(PendingWrites other) {
+            writes.addAll(other.writes);
+            lastFilter = other.lastFilter;
+            lastUpdate = other.lastUpdate;
+        }
+    }
+}
@@ -2,22 +2,20 @@ package services.ftlcontractservices;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.google.gson.Gson;
-import com.mongodb.client.model.UpdateOneModel;
-import com.mongodb.client.model.WriteModel;
 import constants.AssignType;
 import constants.NotificationConstants;
 import controllers.VendorProductManagement;
 import dao.CouriersDBDao;
 import dao.CustomerRepoDBDao;
-import dao.CustomersDBDao;
 import dao.ProductsDBDao;
-import dao.UsersDBDao;
 import dao.UtilDBDao;
 import dao.VendorRepoDBDao;
 import exceptions.DataNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import models.CustomerNotification;
@@ -27,6 +25,7 @@ import models.SessionData;
 import models.Vendor;
 import models.VendorNotification;
 import models.fulltruckload.ContractApprovalRequest;
+import models.fulltruckload.ContractApprovalResult;
 import models.fulltruckload.FtlContractAssignRequest;
 import models.fulltruckload.Quotation;
 import models.vendororderbooking.ContractResponse;
@@ -35,8 +34,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.bson.BsonDateTime;
 import org.bson.BsonDouble;
 import org.bson.Document;
-import services.NotificationService;
+import services.CompanyLookupCache;
+import services.NotificationOutbox;
 import util.BasicUtil;
+import util.ModelCodecs;
+import util.NotificationIdGenerator;
 import util.ObjectMapperUtil;
 import util.TimeUtils;
 
@@ -53,10 +55,8 @@ import static constants.MongoDatabaseKeyNames.PUSH_OPERATOR;
 import static constants.MongoDatabaseKeyNames.SET_OPERATOR;
 import static constants.MongoDatabaseKeyNames.TIME_CREATED;
 import static constants.NotificationConstants.NOTIFICATION_PREFIX;
-import static constants.SystemConstants.CUSTOMER_RECIPIENT;
 import static constants.SystemConstants.DIRECT_APPROVAL;
 import static constants.SystemConstants.QUOTATION_APPROVAL;
-import static constants.SystemConstants.VENDOR_RECIPIENT;
 
 interface ContractOperation {
     // assignContract();
@@ -76,15 +76,15 @@ public class FtlContractOperation implement ContractOperation {
     @Inject
     private CustomerRepoDBDao customerRepoDBDao;
     @Inject
-    private UsersDBDao usersDBDao;
-    @Inject
-    private CustomersDBDao customersDBDao;
-    @Inject
     private VendorRepoDBDao vendorRepoDBDao;
     @Inject
     private CouriersDBDao couriersDBDao;
     @Inject
-    private NotificationService notificationService;
+    private NotificationOutbox notificationOutbox;
+    @Inject
+    private CompanyLookupCache companyLookupCache;
+    @Inject
+    private NotificationIdGenerator notificationIdGenerator;
 
     private static final String CONTRACT_ID = "contractId";
     private static final String COMPANY_LOGO = "companyLogo";
@@ -102,8 +102,7 @@ public class FtlContractOperation implement ContractOperation {
     private static final String CUSTOMER_ID = "customerId";
     private static final String REJECTION_TEXT = "Service edit rejected by customer ";
     private static final String APPROVED = "approved";
-    private static final String ADMIN = "admin";
-    private static final String NOTIFICATIONS = "notifications";
+    private static final String ELEM_MATCH = "$elemMatch";
 
     public void assignFtlContractToCustomer(SessionData sessionData, JsonNode json) throws JsonProcessingException {
         FtlContractAssignRequest request = ObjectMapperUtil.fetchObjectMapper().treeToValue(json, FtlContractAssignRequest.class);
@@ -119,7 +118,7 @@ public class FtlContractOperation implement ContractOperation {
         String collectionName = sessionData.getCollectionName();
         String logo = "";
         ContractApprovalRequest approvalRequest = ObjectMapperUtil.fetchObjectMapper().treeToValue(json, ContractApprovalRequest.class);
-        String vendorCollectionName = sendMyKartDAO.getVendorCollectionIdFromCompanyId(approvalRequest.getVendorId());
+        String vendorCollectionName = companyLookupCache.getVendorCollectionIdFromCompanyId(approvalRequest.getVendorId());
         if (isActionAlreadyTaken(collectionName, companyId, approvalRequest.getContractId(), approvalRequest.getVendorId())) {
             throw new DataNotFoundException("Action already taken" + approvalRequest.getContractId());
         }
@@ -129,11 +128,84 @@ public class FtlContractOperation implement ContractOperation {
         if (unapprovedProducts.isEmpty()) {
             throw new DataNotFoundException("Product not in unapproved list" + approvalRequest.getContractId());
         }
-        performContractApprovalOperation(sessionData, unapprovedProducts, contractList, logo, approvalRequest,
+        ContractApprovalWrites writes = new ContractApprovalWrites();
+        performContractApprovalOperation(writes, sessionData, unapprovedProducts, contractList, logo, approvalRequest,
                 vendorCollectionName);
+        flush(writes);
+        writes.sendNotifications();
         updateFtlContractStatusEnabled(vendorCollectionName, approvalRequest, collectionName);
     }
 
+    public List<ContractApprovalResult> approveFtlContracts(SessionData sessionData, JsonNode json) throws JsonProcessingException {
+        String companyId = sessionData.getCompanyId();
+        String collectionName = sessionData.getCollectionName();
+        ContractApprovalRequest[] approvalRequests = ObjectMapperUtil.fetchObjectMapper().treeToValue(json, ContractApprovalRequest[].class);
+        Document contractList = customerRepoDBDao.retrieveContractList(collectionName, companyId);
+        String logo = contractList.getString("logo");
+        Set<String> actionsTaken = retrieveActionsAlreadyTaken(collectionName, companyId, approvalRequests);
+        ContractApprovalResult[] results = new ContractApprovalResult[approvalRequests.length];
+        String[] vendorCollectionNames = new String[approvalRequests.length];
+        ContractApprovalWrites writes = new ContractApprovalWrites();
+        for (int i = 0; i < approvalRequests.length; i++) {
+            ContractApprovalRequest approvalRequest = approvalRequests[i];
+            String contractId = approvalRequest.getContractId();
+            if (!actionsTaken.add(actionKey(contractId, approvalRequest.getVendorId()))) {
+                results[i] = ContractApprovalResult.failed(contractId, "Action already taken" + contractId);
+                continue;
+            }
+            List<Document> unapprovedProducts = retrieveUnApprovedContracts(contractList, contractId);
+            if (unapprovedProducts.isEmpty()) {
+                results[i] = ContractApprovalResult.failed(contractId, "Product not in unapproved list" + contractId);
+                continue;
+            }
+            ContractApprovalWrites contractWrites = writes.forContract();
+            try {
+                String vendorCollectionName = companyLookupCache.getVendorCollectionIdFromCompanyId(approvalRequest.getVendorId());
+                performContractApprovalOperation(contractWrites, sessionData, unapprovedProducts, contractList, logo,
+                        approvalRequest, vendorCollectionName);
+                writes.append(contractWrites);
+                vendorCollectionNames[i] = vendorCollectionName;
+            } catch (RuntimeException e) {
+                results[i] = ContractApprovalResult.failed(contractId, e.getMessage());
+            } finally {
+                ((List<Document>) contractList.get(UNAPPROVED_PRODUCTS)).removeAll(unapprovedProducts);
+            }
+        }
+        try {
+            flush(writes);
+        } catch (RuntimeException e) {
+            for (int i = 0; i < approvalRequests.length; i++) {
+                if (vendorCollectionNames[i] != null) {
+                    results[i] = ContractApprovalResult.failed(approvalRequests[i].getContractId(), e.getMessage());
+                }
+            }
+            return Arrays.asList(results);
+        }
+        writes.applyAddedVendors((List<Document>) contractList.get("vendors"));
+        writes.sendNotifications();
+        for (int i = 0; i < approvalRequests.length; i++) {
+            if (vendorCollectionNames[i] == null) {
+                continue;
+            }
+            ContractApprovalRequest approvalRequest = approvalRequests[i];
+            try {
+                updateFtlContractStatusEnabled(vendorCollectionNames[i], approvalRequest, collectionName);
+                results[i] = ContractApprovalResult.succeeded(approvalRequest.getContractId(),
+                        approvalRequest.getCustomerResponse());
+            } catch (RuntimeException e) {
+                results[i] = ContractApprovalResult.failed(approvalRequest.getContractId(), e.getMessage());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void flush(ContractApprovalWrites writes) {
+        writes.products.flush(productsDBDao::bulkWriteIntoCollection);
+        writes.vendorRepo.flush(vendorRepoDBDao::bulkWriteIntoCollection);
+        writes.couriers.flush(couriersDBDao::bulkWriteIntoCollection);
+        writes.customerRepo.flush(customerRepoDBDao::bulkWriteIntoCollection);
+    }
+
     private BigDecimal calcculateContractPrice() {
         // Complex Logic
     }
@@ -149,7 +221,33 @@ public class FtlContractOperation implement ContractOperation {
         return BasicUtil.isCollectionNotNullOrEmpty(duplicateDocuments);
     }
 
-    private void assignContractAgainstQuotation(SessionData sessionData, FtlContractAssignRequest request) throws JsonProcessingException {
+    private Set<String> retrieveActionsAlreadyTaken(String collectionName, String companyId,
+                                                    ContractApprovalRequest[] approvalRequests) {
+        List<String> contractIds = Arrays.stream(approvalRequests).map(ContractApprovalRequest::getContractId)
+                .distinct().collect(Collectors.toList());
+        List<String> vendorIds = Arrays.stream(approvalRequests).map(ContractApprovalRequest::getVendorId)
+                .distinct().collect(Collectors.toList());
+        Document checkDocument = new Document(COMPANY_ID, collectionName).append("cId", companyId)
+                .append(PRODUCTS, new Document(ELEM_MATCH, new Document("pId", new Document("$in", contractIds))
+                        .append("vId", new Document("$in", vendorIds))));
+        Set<String> actionsTaken = new HashSet<>();
+        List<Document> duplicateDocuments = customerRepoDBDao.fetchDuplicateDocuments(collectionName, checkDocument);
+        if (BasicUtil.isCollectionNotNullOrEmpty(duplicateDocuments)) {
+            for (Document duplicateDocument : duplicateDocuments) {
+                List<Document> products = (List<Document>) duplicateDocument.get(PRODUCTS);
+                if (products != null) {
+                    products.forEach(product -> actionsTaken.add(actionKey(product.getString("pId"), product.getString("vId"))));
+                }
+            }
+        }
+        return actionsTaken;
+    }
+
+    private String actionKey(String contractId, String vendorId) {
+        return contractId + ":" + vendorId;
+    }
+
+    private void assignContractAgainstQuotation(SessionData sessionData, FtlContractAssignRequest request) {
         String companyId = sessionData.getCompanyId();
         Document quotationDocument = retrieveQuotationDocument(companyId, request);
         String customerId = quotationDocument.getString(CUSTOMER_ID);
@@ -170,13 +268,13 @@ public class FtlContractOperation implement ContractOperation {
     }
 
     private Document fetchQuotationData(FtlContractAssignRequest request, ContractResponse.Customer.Billing billing,
-                                        String customerName, String customerId, String customerCollection) throws JsonProcessingException {
+                                        String customerName, String customerId, String customerCollection) {
         Quotation quotation = new Quotation();
         mapToCreditInformation(quotation, request, billing);
         mapToBillingInformation(quotation, request, billing);
         mapToPaymentInformation(quotation, request, billing);
         mapToQuotationCustomerDetails(quotation, customerId, customerName, customerCollection);
-        return Document.parse(ObjectMapperUtil.fetchObjectMapper().writeValueAsString(quotation));
+        return ModelCodecs.toDocument(quotation);
     }
 
     private void mapToQuotationCustomerDetails(Quotation quotation, String customerId, String customerName, String customerCollection) {
@@ -211,14 +309,14 @@ public class FtlContractOperation implement ContractOperation {
     }
 
     private Document fetchCustomerContractDocument(ContractResponse.Customer.Billing billing, String customerName,
-                                                   String customerId, String customerCollection) throws JsonProcessingException {
+                                                   String customerId, String customerCollection) {
         ContractResponse.Customer customer = new ContractResponse.Customer();
         customer.setBilling(billing);
         customer.setApproved(false);
         customer.setCustomerName(customerName);
         customer.setCustomerId(customerId);
         customer.setCustomerCId(customerCollection);
-        return Document.parse(ObjectMapperUtil.fetchObjectMapper().writeValueAsString(customer));
+        return ModelCodecs.toDocument(customer);
     }
 
     private Document retrieveQuotationDocument(String vendorCompanyId, FtlContractAssignRequest request) {
@@ -229,11 +327,11 @@ public class FtlContractOperation implement ContractOperation {
         return utilDBDao.findOneQuotationAndUpdate(searchQuery, updateQuery);
     }
 
-    private void assignContractAgainstCustomer(SessionData sessionData, FtlContractAssignRequest request) throws JsonProcessingException {
+    private void assignContractAgainstCustomer(SessionData sessionData, FtlContractAssignRequest request) {
         String companyId = sessionData.getCompanyId();
         String customerId = request.getCustomers();
-        String customerCollection = sendMyKartDAO.getCustomerCollectionIdFromCompanyId(customerId);
-        String customerName = sendMyKartDAO.getCustomerCompanyNameFromCompanyId(customerId);
+        String customerCollection = companyLookupCache.getCustomerCollectionIdFromCompanyId(customerId);
+        String customerName = companyLookupCache.getCustomerCompanyNameFromCompanyId(customerId);
         ContractResponse.Customer.Billing billing = retrieveCustomerBillingModel(request, companyId, customerId, customerCollection, customerName);
         billing.setType(DIRECT_APPROVAL);
         Document customerDocument = fetchCustomerContractDocument(billing, customerName, customerId, customerCollection);
@@ -250,9 +348,11 @@ public class FtlContractOperation implement ContractOperation {
     private void updateDatabasesForContractAssignment(FtlContractAssignRequest request, String customerId, SessionData sessionData,
                                                       Document customerDocument, String assignmentType) {
         String vendorCollection = sessionData.getCollectionName();
-        String customerCollection = sendMyKartDAO.getCustomerCollectionIdFromCompanyId(customerId);
-        removeCustomerFromProduct(vendorCollection, request.getContractId(), customerId);
-        removeExistingCustomerFromProduct(vendorCollection, request, customerId);
+        String customerCollection = companyLookupCache.getCustomerCollectionIdFromCompanyId(customerId);
+        ContractWriteBatch productWrites = new ContractWriteBatch();
+        removeCustomerFromProduct(productWrites, vendorCollection, request.getContractId(), customerId);
+        removeExistingCustomerFromProduct(productWrites, vendorCollection, request, customerId);
+        productWrites.flush(productsDBDao::bulkWriteIntoCollection);
         Document product = productsDBDao.findOneDocumentAndUpdate(vendorCollection, request.getContractId(), customerDocument);
         if (product.isEmpty()) {
             throw new DataNotFoundException("Resources not found" + request.getContractId());
@@ -263,8 +363,9 @@ public class FtlContractOperation implement ContractOperation {
         updateCustomerRepoForContractAssignment(customerCollection, customerId, request, unapprovedProduct);
     }
 
-    private void removeExistingCustomerFromProduct(String vendorCollection, FtlContractAssignRequest request, String customerId) {
-        productsDBDao.updateOneDocument(vendorCollection, findByContractId(request.getContractId()),
+    private void removeExistingCustomerFromProduct(ContractWriteBatch productWrites, String vendorCollection,
+                                                   FtlContractAssignRequest request, String customerId) {
+        productWrites.updateOne(vendorCollection, findByContractId(request.getContractId()),
                 fetchExistingCustomerFromContract(customerId));
     }
 
@@ -282,13 +383,16 @@ public class FtlContractOperation implement ContractOperation {
 
     private void updateCustomerRepoForContractAssignment(String customerCollection, String customerId,
                                                          FtlContractAssignRequest request, Document unapprovedProduct) {
-        removePreviousExistingProductFromUnapprovedList(customerCollection, customerId, request);
-        addNewContractToUnapprovedList(customerCollection, customerId, unapprovedProduct);
-        removeProductFromApprovedList(customerCollection, customerId, request);
+        ContractWriteBatch customerRepoWrites = new ContractWriteBatch();
+        removePreviousExistingProductFromUnapprovedList(customerRepoWrites, customerCollection, customerId, request);
+        addNewContractToUnapprovedList(customerRepoWrites, customerCollection, customerId, unapprovedProduct);
+        removeProductFromApprovedList(customerRepoWrites, customerCollection, customerId, request);
+        customerRepoWrites.flush(customerRepoDBDao::bulkWriteIntoCollection);
     }
 
-    private void removeProductFromApprovedList(String customerCollection, String customerId, FtlContractAssignRequest request) {
-        customerRepoDBDao.updateOneDocument(customerCollection, fetchApprovedContractByContractId(customerId, request.getContractId()),
+    private void removeProductFromApprovedList(ContractWriteBatch customerRepoWrites, String customerCollection,
+                                               String customerId, FtlContractAssignRequest request) {
+        customerRepoWrites.updateOne(customerCollection, fetchApprovedContractByContractId(customerId, request.getContractId()),
                 fetchApprovedContractDocument(request.getContractId()));
     }
 
@@ -301,9 +405,9 @@ public class FtlContractOperation implement ContractOperation {
         return new Document("cId", customerId).append(PRODUCTS_DOT_PID, contractId);
     }
 
-    private void addNewContractToUnapprovedList(String customerCollection, String customerId,
-                                                Document unapprovedProduct) {
-        customerRepoDBDao.updateOneDocument(customerCollection, findByCustomerId(customerId),
+    private void addNewContractToUnapprovedList(ContractWriteBatch customerRepoWrites, String customerCollection,
+                                                String customerId, Document unapprovedProduct) {
+        customerRepoWrites.updateOne(customerCollection, findByCustomerId(customerId),
                 fetchNewUnapprovedContract(unapprovedProduct));
     }
 
@@ -315,8 +419,9 @@ public class FtlContractOperation implement ContractOperation {
         return new Document("cId", customerId);
     }
 
-    private void removePreviousExistingProductFromUnapprovedList(String customerCollection, String customerId, FtlContractAssignRequest request) {
-        customerRepoDBDao.updateOneDocument(customerCollection, findByUnapprovedContractId(customerId, request.getContractId()),
+    private void removePreviousExistingProductFromUnapprovedList(ContractWriteBatch customerRepoWrites, String customerCollection,
+                                                                 String customerId, FtlContractAssignRequest request) {
+        customerRepoWrites.updateOne(customerCollection, findByUnapprovedContractId(customerId, request.getContractId()),
                 fetchExistingUnapprovedContract(request.getContractId()));
     }
 
@@ -329,8 +434,9 @@ public class FtlContractOperation implement ContractOperation {
         return new Document("cId", customerId).append("unapprovedProducts.pId", contractId);
     }
 
-    private void removeCustomerFromProduct(String vendorCollection, String contractId, String customerId) {
-        productsDBDao.updateOneDocument(vendorCollection, new Document(CONTRACT_ID, contractId),
+    private void removeCustomerFromProduct(ContractWriteBatch productWrites, String vendorCollection, String contractId,
+                                           String customerId) {
+        productWrites.updateOne(vendorCollection, new Document(CONTRACT_ID, contractId),
                 fetchExistingCustomerFromContract(customerId));
     }
 
@@ -381,8 +487,7 @@ public class FtlContractOperation implement ContractOperation {
         Document checkDocument = new Document();
         checkDocument.append(COMPANY_ID, collectionName);
         checkDocument.append("cId", companyId);
-        checkDocument.append(PRODUCTS_DOT_PID, contractId);
-        checkDocument.append("products.vId", vendorId);
+        checkDocument.append(PRODUCTS, new Document(ELEM_MATCH, new Document("pId", contractId).append("vId", vendorId)));
         return checkDocument;
     }
 
@@ -397,7 +502,8 @@ public class FtlContractOperation implement ContractOperation {
                 .anyMatch(vendor -> StringUtils.equalsIgnoreCase(vendor.getString("vId"), vendorId));
     }
 
-    private void performContractApprovalOperation(SessionData sessionData, List<Document> unapprovedProducts,
+    private void performContractApprovalOperation(ContractApprovalWrites writes, SessionData sessionData,
+                                                  List<Document> unapprovedProducts,
                                                   Document contractList, String logo, ContractApprovalRequest approvalRequest,
                                                   String vendorCollectionName) {
         for (Document product : unapprovedProducts) {
@@ -406,35 +512,42 @@ public class FtlContractOperation implement ContractOperation {
             String productType = product.getString("approvalType");
             if (StringUtils.equalsIgnoreCase(productType, "new")) {
                 product.put("logo", logo);
-                performContractApprovalOnNewOperation(product, sessionData, approvalRequest, vendorNotification, customerNotification,
-                        contractList, vendorCollectionName);
+                performContractApprovalOnNewOperation(writes, product, sessionData, approvalRequest,
+                        vendorNotification, customerNotification, contractList, vendorCollectionName);
             } else {
-                updateExistingContractForApproval(approvalRequest, sessionData, product);
-                updateExistingContractForRejectionWithReason(approvalRequest, vendorCollectionName, product,
+                updateExistingContractForApproval(writes, approvalRequest, sessionData, product);
+                updateExistingContractForRejectionWithReason(writes, approvalRequest, vendorCollectionName, product,
                         customerNotification, vendorNotification, sessionData);
             }
         }
     }
 
-    private void performContractApprovalOnNewOperation(Document product, SessionData sessionData, ContractApprovalRequest approvalRequest,
+    private void performContractApprovalOnNewOperation(ContractApprovalWrites writes, Document product,
+                                                       SessionData sessionData, ContractApprovalRequest approvalRequest,
                                                        VendorNotification vendorNotification, CustomerNotification customerNotification,
                                                        Document contractList, String vendorCollectionName) {
         String contractApprovalType = product.getString("type");
-        boolean isVendorAlreadyAdded = isVendorAlreadyAddedToContract(approvalRequest.getVendorId(), contractList);
+        boolean isVendorAlreadyAdded = isVendorAlreadyAddedToContract(approvalRequest.getVendorId(), contractList)
+                || writes.isVendorAdded(approvalRequest.getVendorId());
         ContractApprovalSupplier contractApprovalSupplier = new ContractApprovalSupplier();
         FtlContractService ftlContractService = contractApprovalSupplier.supplyContractApprovalType(contractApprovalType);
         Document approvalDocument = ftlContractService.performContractApproval(product, approvalRequest, isVendorAlreadyAdded
                 , sessionData, vendorCollectionName);
-        updateContractLogsToProductsDb(vendorCollectionName,product.getString("pId"), (Document) approvalDocument.get("logs"));
+        updateContractLogsToProductsDb(writes, vendorCollectionName, product.getString("pId"),
+                (Document) approvalDocument.get("logs"));
         updateContractNotificationDocument(approvalDocument, vendorNotification, customerNotification);
-        updateNewContractForApproval(approvalRequest, product, vendorCollectionName, sessionData, isVendorAlreadyAdded,
-                vendorNotification);
-        updateNewContractForRejection(approvalRequest, vendorNotification, vendorCollectionName, sessionData,
-                product, customerNotification);
+        updateNewContractForApproval(writes, approvalRequest, product, vendorCollectionName, sessionData,
+                isVendorAlreadyAdded, vendorNotification);
+        updateNewContractForRejection(writes, approvalRequest, vendorNotification, vendorCollectionName,
+                sessionData, product, customerNotification);
+        if (!isVendorAlreadyAdded && !isContractApprovalRejected(approvalRequest)) {
+            writes.addVendor(approvalRequest.getVendorId());
+        }
     }
 
-    private void updateContractLogsToProductsDb(String vendorCollectionName, String pId, Document logs) {
-        productsDBDao.updateContractsLogs(vendorCollectionName,pId,logs);
+    private void updateContractLogsToProductsDb(ContractApprovalWrites writes, String vendorCollectionName, String pId,
+                                                Document logs) {
+        writes.products.add(vendorCollectionName, productsDBDao.contractsLogsWrite(pId, logs));
     }
 
     private void updateContractNotificationDocument(Document approvalDocument, VendorNotification vendorNotification, CustomerNotification customerNotification) {
@@ -443,7 +556,8 @@ public class FtlContractOperation implement ContractOperation {
         vendorNotification.setTitle(approvalDocument.getString("title"));
     }
 
-    private void updateExistingContractForRejectionWithReason(ContractApprovalRequest approvalRequest,
+    private void updateExistingContractForRejectionWithReason(ContractApprovalWrites writes,
+                                                              ContractApprovalRequest approvalRequest,
                                                               String vendorCollectionName, Document product,
                                                               CustomerNotification customerNotification,
                                                               VendorNotification vendorNotification, SessionData sessionData) {
@@ -454,15 +568,15 @@ public class FtlContractOperation implement ContractOperation {
         if (isContractApprovalRejected(approvalRequest)) {
             log.append("text", REJECTION_TEXT + companyName + " due to " + approvalRequest.getReasonForRejection());
             log.append("time", TimeUtils.retrieveCurrentTimeInMillis());
-            productsDBDao.updateContractAssignmentRejectedDetails(vendorCollectionName, approvalRequest.getContractId(),
-                    companyId, log);
+            writes.products.add(vendorCollectionName, productsDBDao.contractAssignmentRejectedDetailsWrite(
+                    approvalRequest.getContractId(), companyId, log));
             Document repoUpdate = new Document();
             repoUpdate.append(PULL_OPERATOR, new Document(UNAPPROVED_PRODUCTS, new Document("pId", approvalRequest.getContractId())));
-            customerRepoDBDao.updateOneDocument(collectionName, new Document("cId", companyId), repoUpdate);
-            updateCustomerNotificationDocumentForRejectedContractByReason(sessionData, product,
+            writes.customerRepo.updateOne(collectionName, new Document("cId", companyId), repoUpdate);
+            updateCustomerNotificationDocumentForRejectedContractByReason(writes, sessionData, product,
                     approvalRequest.getContractId(), approvalRequest.getReasonForRejection(), customerNotification);
-            updateVendorNotificationDocumentForRejectedContractByReason(sessionData, product, approvalRequest.getContractId()
-                    , vendorNotification, vendorCollectionName);
+            updateVendorNotificationDocumentForRejectedContractByReason(writes, sessionData, product,
+                    approvalRequest.getContractId(), vendorNotification, vendorCollectionName);
         }
     }
 
@@ -470,7 +584,8 @@ public class FtlContractOperation implement ContractOperation {
         return !approvalRequest.getCustomerResponse().equalsIgnoreCase(APPROVED);
     }
 
-    private void updateExistingContractForApproval(ContractApprovalRequest approvalRequest, SessionData sessionData, Document product) {
+    private void updateExistingContractForApproval(ContractApprovalWrites writes, ContractApprovalRequest approvalRequest,
+                                                   SessionData sessionData, Document product) {
         String companyId = sessionData.getCompanyId();
         String collectionName = sessionData.getCollectionName();
         if (approvalRequest.getCustomerResponse().equalsIgnoreCase(APPROVED)) {
@@ -479,11 +594,12 @@ public class FtlContractOperation implement ContractOperation {
                     .append("unapprovedProducts.pId", approvalRequest.getContractId());
             Document documentToBeUpdated = new Document(PUSH_OPERATOR, new Document(PRODUCTS, product))
                     .append(PULL_OPERATOR, new Document(UNAPPROVED_PRODUCTS, new Document("pId", approvalRequest.getContractId())));
-            customerRepoDBDao.updateOneDocument(collectionName, searchQuery, documentToBeUpdated);
+            writes.customerRepo.updateOne(collectionName, searchQuery, documentToBeUpdated);
         }
     }
 
-    private void updateNewContractForRejection(ContractApprovalRequest approvalRequest, VendorNotification vendorNotification,
+    private void updateNewContractForRejection(ContractApprovalWrites writes, ContractApprovalRequest approvalRequest,
+                                               VendorNotification vendorNotification,
                                                String vendorCollectionName, SessionData sessionData, Document product, CustomerNotification customerNotification) {
         String companyId = sessionData.getCompanyId();
         String collectionName = sessionData.getCollectionName();
@@ -491,16 +607,16 @@ public class FtlContractOperation implement ContractOperation {
         if (isContractApprovalRejected(approvalRequest)) {
             Document repoUpdate = new Document();
             repoUpdate.append(PULL_OPERATOR, new Document(UNAPPROVED_PRODUCTS, new Document("pId", approvalRequest.getContractId())));
-            customerRepoDBDao.updateOneDocument(collectionName, new Document("cId", companyId), repoUpdate);
-            updateCustomerNotificationDocumentForRejectedContractByReason(sessionData, product, approvalRequest.getContractId(),
-                    approvalRequest.getReasonForRejection(), customerNotification);
-            updateVendorNotificationDocumentForRejectedContractByReason(sessionData, product, approvalRequest.getContractId(),
-                    vendorNotification, vendorCollectionName);
+            writes.customerRepo.updateOne(collectionName, new Document("cId", companyId), repoUpdate);
+            updateCustomerNotificationDocumentForRejectedContractByReason(writes, sessionData, product,
+                    approvalRequest.getContractId(), approvalRequest.getReasonForRejection(), customerNotification);
+            updateVendorNotificationDocumentForRejectedContractByReason(writes, sessionData, product,
+                    approvalRequest.getContractId(), vendorNotification, vendorCollectionName);
             String quotationId = product.getString("quotationId");
             Document log = mapToLogDocument(quotationId, approvalRequest, companyName);
-            productsDBDao.updateQuotationDetailsAgainstContract(vendorCollectionName, approvalRequest.getContractId(), companyId, log,
-                    quotationId);
-            vendorRepoDBDao.updateQuotationRejectionDetails(vendorCollectionName, quotationId, product);
+            writes.products.add(vendorCollectionName, productsDBDao.quotationDetailsAgainstContractWrite(
+                    approvalRequest.getContractId(), companyId, log, quotationId));
+            writes.vendorRepo.add(vendorCollectionName, vendorRepoDBDao.quotationRejectionDetailsWrite(quotationId, product));
         }
     }
 
@@ -516,48 +632,56 @@ public class FtlContractOperation implement ContractOperation {
                 + approvalRequest.getReasonForRejection();
     }
 
-    private void updateNewContractForApproval(ContractApprovalRequest approvalRequest, Document product,
+    private void updateNewContractForApproval(ContractApprovalWrites writes, ContractApprovalRequest approvalRequest,
+                                              Document product,
                                               String vendorCollectionName, SessionData sessionData,
                                               boolean isVendorAlreadyAdded, VendorNotification vendorNotification) {
         String companyId = sessionData.getCompanyId();
         String collectionName = sessionData.getCollectionName();
         if (approvalRequest.getCustomerResponse().equalsIgnoreCase(APPROVED)) {
-            updateBillingDocumentForNewContractApproval(product, vendorCollectionName, approvalRequest.getContractId(), companyId);
-            updatePincodeContractList(collectionName, approvalRequest, vendorCollectionName);
+            updateBillingDocumentForNewContractApproval(writes, product, vendorCollectionName, approvalRequest.getContractId(),
+                    companyId);
+            updatePincodeContractList(writes, collectionName, approvalRequest, vendorCollectionName);
             product.put("creditUsed", new BsonDouble(0));
-            updateCustomerRepoWithContractDetails(product, vendorCollectionName, sessionData,
+            updateCustomerRepoWithContractDetails(writes, product, vendorCollectionName, sessionData,
                     approvalRequest.getVendorId(), approvalRequest.getContractId(), isVendorAlreadyAdded);
-            updateNotificationForNewContractApproval(product, sessionData, approvalRequest, vendorNotification, collectionName,
-                    vendorCollectionName, companyId);
-            updateVendorRepoForNewContractApproval(approvalRequest, product, sessionData, vendorCollectionName, isVendorAlreadyAdded);
+            updateNotificationForNewContractApproval(writes, product, sessionData, approvalRequest, vendorNotification,
+                    collectionName, vendorCollectionName, companyId);
+            updateVendorRepoForNewContractApproval(writes, approvalRequest, product, sessionData, vendorCollectionName,
+                    isVendorAlreadyAdded);
         }
     }
 
-    private void updateVendorRepoForNewContractApproval(ContractApprovalRequest approvalRequest, Document product, SessionData sessionData,
+    private void updateVendorRepoForNewContractApproval(ContractApprovalWrites writes, ContractApprovalRequest approvalRequest,
+                                                        Document product, SessionData sessionData,
                                                         String vendorCollectionName, boolean isVendorAlreadyAdded) {
         Document vendorUpdate = retrieveVendorUpdateDocument(approvalRequest.getContractId(), product.getString("logo"),
                 sessionData, product, isVendorAlreadyAdded);
         String quotationId = product.getString("quotationId");
-        vendorRepoDBDao.updateQuotationAgainstContract(vendorUpdate, vendorCollectionName, quotationId, product);
+        writes.vendorRepo.add(vendorCollectionName,
+                vendorRepoDBDao.quotationAgainstContractWrite(vendorUpdate, quotationId, product));
     }
 
-    private void updateNotificationForNewContractApproval(Document product, SessionData sessionData, ContractApprovalRequest approvalRequest,
+    private void updateNotificationForNewContractApproval(ContractApprovalWrites writes, Document product,
+                                                          SessionData sessionData, ContractApprovalRequest approvalRequest,
                                                           VendorNotification vendorNotification, String collectionName,
                                                           String vendorCollectionName, String companyId) {
         String userName = sessionData.getUserName();
         String userFullName = sessionData.getUserFullName();
         Document customerNotificationDocument = retrieveFtlCustomerNotificationDocument(userName, product, approvalRequest.getContractId(),
                 companyId, userFullName);
-        updateFtlCustomerNotificationDocument(customerNotificationDocument, collectionName, companyId);
-        updateVendorNotifications(sessionData, approvalRequest.getContractId(), vendorCollectionName, product, vendorNotification);
+        updateFtlCustomerNotificationDocument(writes, customerNotificationDocument, collectionName, companyId);
+        updateVendorNotifications(writes, sessionData, approvalRequest.getContractId(), vendorCollectionName, product,
+                vendorNotification);
     }
 
-    private void updateBillingDocumentForNewContractApproval(Document product, String vendorCollectionName, String contractId, String companyId) {
+    private void updateBillingDocumentForNewContractApproval(ContractApprovalWrites writes, Document product,
+                                                             String vendorCollectionName, String contractId, String companyId) {
         Document billing = (Document) product.get(BILLING);
         billing.put("type", product.getString("type"));
         Document log = new Document();
         billing.remove("id");
-        productsDBDao.updateContractBillingDetails(vendorCollectionName, contractId, log, billing, companyId);
+        writes.products.add(vendorCollectionName, productsDBDao.contractBillingDetailsWrite(contractId, log, billing, companyId));
     }
 
     private Document retrieveVendorUpdateDocument(String contractId, String logo, SessionData sessionData,
@@ -589,19 +713,12 @@ public class FtlContractOperation implement ContractOperation {
                 .append("email", sessionData.getUserName())));
     }
 
-    private void updateVendorNotifications(SessionData sessionData, String contractId, String vendorCollectionName,
-                                           Document product, VendorNotification vendorNotification) {
+    private void updateVendorNotifications(ContractApprovalWrites writes, SessionData sessionData, String contractId,
+                                           String vendorCollectionName, Document product, VendorNotification vendorNotification) {
         Document vendorNotificationDocument = fetchVendorNotificationApprovalDocument(vendorNotification, sessionData, contractId);
-        Document searchQuery = new Document("vId", product.getString(VENDOR_ID)).append("role", ADMIN);
-        Document updateDocument = new Document(PUSH_OPERATOR, new Document(NOTIFICATIONS, vendorNotificationDocument));
-        usersDBDao.updateManyDocument(vendorCollectionName, searchQuery, updateDocument);
-        updateNotificationServiceForVendor(vendorCollectionName, vendorNotificationDocument, product);
-    }
-
-    private void updateNotificationServiceForVendor(String vendorCollectionName, Document vendorNotificationDocument, Document product) {
-        List<String> users = usersDBDao.retrieveVendorAdminIds(vendorCollectionName, product.getString(VENDOR_ID));
-        List<String> vendorUsers = new ArrayList<>(users);
-        notificationService.pushNotification(vendorNotificationDocument, VENDOR_RECIPIENT, vendorUsers);
+        String vendorId = product.getString(VENDOR_ID);
+        writes.notifyAfterWrite(() -> notificationOutbox.enqueueVendorNotification(vendorCollectionName, vendorId,
+                vendorNotificationDocument));
     }
 
     private Document fetchVendorNotificationApprovalDocument(VendorNotification vendorNotification, SessionData sessionData, String contractId) {
@@ -618,21 +735,15 @@ public class FtlContractOperation implement ContractOperation {
         vendorNotification.setSourceId(companyId);
         vendorNotification.setSourceCollectionId(collectionName);
         vendorNotification.setId(generateNotificationIdWithCompanyId(companyId));
-        Document vendorNotificationDocument = Document.parse(new Gson().toJson(vendorNotification));
+        Document vendorNotificationDocument = ModelCodecs.toDocument(vendorNotification);
         vendorNotificationDocument.put(TIME_CREATED, new BsonDateTime(TimeUtils.retrieveCurrentTimeInMillis()));
         return vendorNotificationDocument;
     }
 
-    private void updateFtlCustomerNotificationDocument(Document customerNotificationDocument, String collectionName, String companyId) {
-        Document updateQuery = new Document("cId", companyId).append("role", ADMIN);
-        Document documentToBeUpdated = new Document(PUSH_OPERATOR, new Document(NOTIFICATIONS, customerNotificationDocument));
-        customersDBDao.updateManyDocuments(collectionName, updateQuery, documentToBeUpdated);
-        updateNotificationServiceForCustomer(collectionName, customerNotificationDocument, companyId);
-    }
-
-    private void updateNotificationServiceForCustomer(String collectionName, Document customerNotificationDocument, String companyId) {
-        List<String> customerUsers = retrieveCustomerUsersList(collectionName, companyId);
-        notificationService.pushNotification(customerNotificationDocument, CUSTOMER_RECIPIENT, customerUsers);
+    private void updateFtlCustomerNotificationDocument(ContractApprovalWrites writes, Document customerNotificationDocument,
+                                                       String collectionName, String companyId) {
+        writes.notifyAfterWrite(() -> notificationOutbox.enqueueCustomerNotification(collectionName, companyId,
+                customerNotificationDocument));
     }
 
     private Document retrieveFtlCustomerNotificationDocument(String userName, Document product, String contractId, String companyId, String userFullName) {
@@ -647,7 +758,7 @@ public class FtlContractOperation implement ContractOperation {
         customerNotification.setSourceName(product.getString(VENDOR_NAME));
         customerNotification.setSourceId(product.getString(VENDOR_ID));
         customerNotification.setSourceCollectionId(product.getString(VENDOR_COMPANY_ID));
-        Document customerNotificationDocument = Document.parse(new Gson().toJson(customerNotification));
+        Document customerNotificationDocument = ModelCodecs.toDocument(customerNotification);
         customerNotificationDocument.put(TIME_CREATED, new BsonDateTime(TimeUtils.retrieveCurrentTimeInMillis()
         ));
         return customerNotificationDocument;
@@ -657,8 +768,8 @@ public class FtlContractOperation implement ContractOperation {
         return product.getString(PRODUCT_NAME) + BY + product.getString(VENDOR_NAME) + HAS_BEEN_ADDED_BY + userFullName;
     }
 
-    private void updateCustomerRepoWithContractDetails(Document product, String vendorCollectionName, SessionData sessionData,
-                                                       String vendorId, String contractId, boolean isVendorAlreadyAdded) {
+    private void updateCustomerRepoWithContractDetails(ContractApprovalWrites writes, Document product,
+                                                       String vendorCollectionName, SessionData sessionData, String vendorId, String contractId, boolean isVendorAlreadyAdded) {
         String companyId = sessionData.getCompanyId();
         String collectionName = sessionData.getCollectionName();
         Document repoUpdate = new Document();
@@ -668,10 +779,10 @@ public class FtlContractOperation implement ContractOperation {
         if (!isVendorAlreadyAdded) {
             repoUpdate.append(ADD_TO_SET_OPERATOR,
                     new Document("vendors", fetchVendorDocumentForCustomerContractDetails(vendorId, product, vendorCollectionName)));
-            customerRepoDBDao.updateOneDocument(collectionName, new Document("cId", companyId), repoUpdate);
+            writes.customerRepo.updateOne(collectionName, new Document("cId", companyId), repoUpdate);
         } else {
             repoUpdate.append(INCREMENT_OPERATOR, new Document("vendors.$.products", 1));
-            customerRepoDBDao.updateOneDocument(collectionName, new Document("cId", companyId)
+            writes.customerRepo.updateOne(collectionName, new Document("cId", companyId)
                     .append("vendors.vId", vendorId), repoUpdate);
         }
     }
@@ -688,16 +799,12 @@ public class FtlContractOperation implement ContractOperation {
         return vendorDocument;
     }
 
-    private void updatePincodeContractList(String collectionName, ContractApprovalRequest approvalRequest, String vendorCollectionName) {
+    private void updatePincodeContractList(ContractApprovalWrites writes, String collectionName,
+                                           ContractApprovalRequest approvalRequest, String vendorCollectionName) {
         List<Document> pincodeList = couriersDBDao.retrieveContractPincodeDetails(vendorCollectionName, approvalRequest.getContractId());
-        List<WriteModel<Document>> updatePincodeList = new ArrayList<>();
         for (Document document : pincodeList) {
             Document pincodeQuery = new Document("pincode", document.getString("pincode"));
-            Document update = fetchPincodeUpdatedContractDocument(document);
-            updatePincodeList.add(new UpdateOneModel<>(pincodeQuery, update));
-        }
-        if (BasicUtil.isCollectionNotNullOrEmpty(updatePincodeList)) {
-            couriersDBDao.bulkWriteIntoCollection(collectionName, updatePincodeList);
+            writes.couriers.updateOne(collectionName, pincodeQuery, fetchPincodeUpdatedContractDocument(document));
         }
     }
 
@@ -710,7 +817,8 @@ public class FtlContractOperation implement ContractOperation {
         return new Document(ADD_TO_SET_OPERATOR, new Document(PRODUCTS, pincodeProductDocument));
     }
 
-    private void updateVendorNotificationDocumentForRejectedContractByReason(SessionData sessionData, Document product,
+    private void updateVendorNotificationDocumentForRejectedContractByReason(ContractApprovalWrites writes,
+                                                                             SessionData sessionData, Document product,
                                                                              String contractId, VendorNotification vendorNotification,
                                                                              String vendorCollectionName) {
         String collectionName = sessionData.getCollectionName();
@@ -725,22 +833,16 @@ public class FtlContractOperation implement ContractOperation {
         vendorNotification.setSourceId(companyId);
         vendorNotification.setSourceCollectionId(collectionName);
         vendorNotification.setId(generateNotificationIdWithCompanyId(companyId));
-        Document vendorNotificationDocument = Document.parse(new Gson().toJson(vendorNotification));
+        Document vendorNotificationDocument = ModelCodecs.toDocument(vendorNotification);
         vendorNotificationDocument.put(TIME_CREATED,
                 new BsonDateTime(TimeUtils.retrieveCurrentTimeInMillis()));
-        usersDBDao.updateManyDocument(vendorCollectionName, new Document("vId",
-                product.getString(VENDOR_ID)).append("role", ADMIN), new Document(PUSH_OPERATOR,
-                new Document(NOTIFICATIONS, vendorNotificationDocument)));
-        updateVendorContractNotificationServiceForRejection(vendorNotificationDocument, vendorCollectionName, product);
-    }
-
-    private void updateVendorContractNotificationServiceForRejection(Document vendorNotificationDocument, String vendorCollectionName, Document product) {
-        List<String> users = usersDBDao.retrieveVendorAdminIds(vendorCollectionName, product.getString(VENDOR_ID));
-        List<String> vendorUsers = new ArrayList<>(users);
-        notificationService.pushNotification(vendorNotificationDocument, VENDOR_RECIPIENT, vendorUsers);
+        String vendorId = product.getString(VENDOR_ID);
+        writes.notifyAfterWrite(() -> notificationOutbox.enqueueVendorNotification(vendorCollectionName, vendorId,
+                vendorNotificationDocument));
     }
 
-    private void updateCustomerNotificationDocumentForRejectedContractByReason(SessionData sessionData, Document product,
+    private void updateCustomerNotificationDocumentForRejectedContractByReason(ContractApprovalWrites writes,
+                                                                               SessionData sessionData, Document product,
                                                                                String contractId, String reason,
                                                                                CustomerNotification customerNotification) {
         String collectionName = sessionData.getCollectionName();
@@ -755,29 +857,14 @@ public class FtlContractOperation implement ContractOperation {
         customerNotification.setSourceName(product.getString(VENDOR_NAME));
         customerNotification.setSourceId(product.getString(VENDOR_ID));
         customerNotification.setSourceCollectionId(product.getString(VENDOR_COMPANY_ID));
-        Document customerNotificationDocument = Document.parse(new Gson().toJson(customerNotification));
+        Document customerNotificationDocument = ModelCodecs.toDocument(customerNotification);
         customerNotificationDocument.put(TIME_CREATED, new BsonDateTime(TimeUtils.retrieveCurrentTimeInMillis()));
-        Document searchQuery = new Document("cId", companyId).append("role", ADMIN);
-        Document updateDocument = new Document(PUSH_OPERATOR, new Document(NOTIFICATIONS, customerNotificationDocument));
-        customersDBDao.updateManyDocuments(collectionName, searchQuery, updateDocument);
-        updateCustomerContractNotificationServiceForRejection(collectionName, customerNotificationDocument, companyId);
-    }
-
-    private void updateCustomerContractNotificationServiceForRejection(String collectionName, Document customerNotificationDocument,
-                                                                       String companyId) {
-        List<String> customerUsers = retrieveCustomerUsersList(collectionName, companyId);
-        notificationService.pushNotification(customerNotificationDocument, CUSTOMER_RECIPIENT, customerUsers);
+        writes.notifyAfterWrite(() -> notificationOutbox.enqueueCustomerNotification(collectionName, companyId,
+                customerNotificationDocument));
     }
 
     private String generateNotificationIdWithCompanyId(String companyId) {
-        return NOTIFICATION_PREFIX + companyId.toUpperCase() + TimeUtils.retrieveCurrentTimeInMillis();
-    }
-
-    private List<String> retrieveCustomerUsersList(String collectionName, String companyId) {
-        List<String> customerUsers = new ArrayList<>();
-        List<Document> customers = customersDBDao.retrieveCustomerUsersByCompanyId(collectionName, companyId);
-        customers.forEach(customer -> customerUsers.add(customer.getString("uId")));
-        return customerUsers;
+        return notificationIdGenerator.nextId(NOTIFICATION_PREFIX + companyId.toUpperCase());
     }
 
 }
@@ -0,0 +1,67 @@
+package services.loginservice;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Thread pools for the async login path. BCrypt checks run on a CPU-sized
+ * pool whose queue rejects immediately when full, so a login storm fails
+ * fast instead of piling up behind the hash; DB lookups run on a separate
+ * I/O pool so they never wait behind a hash.
+ */
+@Singleton
+public class LoginExecutors {
+    private static final int CPU_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int CPU_QUEUE_CAPACITY = CPU_THREADS * 8;
+    private static final int IO_THREADS = 32;
+    private static final int IO_QUEUE_CAPACITY = 1024;
+
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ThreadPoolExecutor ioExecutor;
+
+    @Inject
+    public LoginExecutors(ApplicationLifecycle lifecycle) {
+        this.cpuExecutor = newBoundedPool("login-bcrypt", CPU_THREADS, CPU_QUEUE_CAPACITY);
+        this.ioExecutor = newBoundedPool("login-io", IO_THREADS, IO_QUEUE_CAPACITY);
+        lifecycle.addStopHook(() -> {
+            cpuExecutor.shutdown();
+            ioExecutor.shutdown();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    public ExecutorService cpu() {
+        return cpuExecutor;
+    }
+
+    public ExecutorService io() {
+        return ioExecutor;
+    }
+
+    public int cpuQueueDepth() {
+        return cpuExecutor.getQueue().size();
+    }
+
+    public int ioQueueDepth() {
+        return ioExecutor.getQueue().size();
+    }
+
+    private static ThreadPoolExecutor newBoundedPool(String name, int threads, int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,28 +1,32 @@
 package services.loginservice;
 
 import dao.CustomerRepoDBDao;
-import dao.SessionsDBDao;
 import dao.VendorRepoDBDao;
 import exceptions.DataNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import models.CustomerUser;
 import models.SMKUser;
-import models.SendMyKartDAO;
 import models.UserSession;
 import models.VendorUser;
 import models.responsemodels.LoginResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.mindrot.jbcrypt.BCrypt;
-import play.cache.SyncCacheApi;
 import play.data.DynamicForm;
 import play.mvc.Http.Cookie;
+import services.CompanyLookupCache;
 import util.CookieUtil;
-import util.Global;
+import util.SessionCrypto;
 
 import static constants.CustomerConstants.USER_TYPE_CLIENT;
 import static constants.ErrorMessages.INVALID_CREDENTIALS;
@@ -56,19 +60,19 @@ import static util.UserUtil.isUserVendor;
 
 public class LoginOperation implements LoginService {
 
-    private final SyncCacheApi cacheApi;
-    private final SessionsDBDao sessionsDBDao;
-    private final SendMyKartDAO sendMyKartDAO;
+    private final WriteBehindSessionStore sessionStore;
+    private final CompanyLookupCache companyLookupCache;
     private final VendorRepoDBDao vendorRepoDBDao;
     private final CustomerRepoDBDao customerRepoDBDao;
+    private final LoginExecutors loginExecutors;
 
     @Inject
-    public LoginOperation(SyncCacheApi cacheApi, SessionsDBDao sessionsDBDao, SendMyKartDAO sendMyKartDAO, VendorRepoDBDao vendorRepoDBDao, CustomerRepoDBDao customerRepoDBDao) {
-        this.cacheApi = cacheApi;
-        this.sessionsDBDao = sessionsDBDao;
-        this.sendMyKartDAO = sendMyKartDAO;
+    public LoginOperation(WriteBehindSessionStore sessionStore, CompanyLookupCache companyLookupCache, VendorRepoDBDao vendorRepoDBDao, CustomerRepoDBDao customerRepoDBDao, LoginExecutors loginExecutors) {
+        this.sessionStore = sessionStore;
+        this.companyLookupCache = companyLookupCache;
         this.vendorRepoDBDao = vendorRepoDBDao;
         this.customerRepoDBDao = customerRepoDBDao;
+        this.loginExecutors = loginExecutors;
     }
 
     //TODO: BOTH: error logging
@@ -83,29 +87,102 @@ public class LoginOperation implements LoginService {
         BaseUser userResponse = userFactory.retrieveUserModel(userType, collectionName, loginId, userName);
         String hash = userResponse.retrieveUserHash();
         if (isPasswordCorrect(password, hash)) {
-            UserSession userSession = retrieveUserSession(userType, userResponse, collectionName, companyId,
+            populateLoginResponse(vendorLoginResponse, userType, userResponse, loginId, collectionName, companyId,
                     userName, remoteAddress);
-            createUserSession(userSession);
-            Map<String, String> sessionMap = retrieveUserSessionMap(userType, userResponse, userSession,
-                    userName, collectionName, companyId);
-            List<Cookie> cookieList = retrieveCookieList(userType, userResponse, loginId, companyId, userSession);
-            cacheApi.set(userSession.getSessionId(), userSession);
-            vendorLoginResponse.setSessionMap(sessionMap);
-            vendorLoginResponse.setCookieList(cookieList);
         } else {
             throw new DataNotFoundException(INVALID_CREDENTIALS);
         }
         return vendorLoginResponse;
     }
 
+    public CompletionStage<LoginResponse> retrieveLoginResponseAsync(DynamicForm dynamicForm, String remoteAddress,
+                                                                     String collectionName, String userType) {
+        String userName = dynamicForm.get("username");
+        String password = dynamicForm.get("password");
+        String loginId = retrieveLoginIdByUserType(userType, dynamicForm);
+        Executor ioExecutor = loginExecutors.io();
+        CompletableFuture<String> companyIdFuture = supplyOn(ioExecutor,
+                () -> retrieveCompanyByUserType(userType, loginId));
+        CompletableFuture<BaseUser> userFuture = supplyOn(ioExecutor,
+                () -> retrieveUserModel(userType, collectionName, loginId, userName));
+        CompletableFuture<BaseUser> verifiedUserFuture = userFuture.thenCompose(userResponse -> supplyOn(
+                loginExecutors.cpu(), () -> isPasswordCorrect(password, userResponse.retrieveUserHash()))
+                .thenApply(passwordCorrect -> {
+                    if (!passwordCorrect) {
+                        throw new DataNotFoundException(INVALID_CREDENTIALS);
+                    }
+                    return userResponse;
+                }));
+        return verifiedUserFuture.thenCombine(companyIdFuture, LoginContext::new)
+                .thenCompose(context -> supplyOn(ioExecutor, () -> context.withAddressId(
+                        retrieveAddressIdByUserType(userType, collectionName, context.companyId))))
+                .thenCompose(context -> supplyOn(ioExecutor, () -> completeLogin(context, userType, loginId,
+                        collectionName, userName, remoteAddress)));
+    }
+
+    private LoginResponse completeLogin(LoginContext context, String userType, String loginId,
+                                        String collectionName, String userName, String remoteAddress) {
+        UserSession userSession = retrieveUserSession(userType, context.user, collectionName, context.companyId,
+                userName, remoteAddress);
+        createUserSession(userSession);
+        LoginResponse loginResponse = new LoginResponse();
+        loginResponse.setSessionMap(retrieveUserSessionMap(userType, context.user, userSession, userName,
+                collectionName, context.companyId, context.addressId));
+        loginResponse.setCookieList(retrieveCookieList(userType, context.user, loginId, context.companyId,
+                userSession));
+        return loginResponse;
+    }
+
+    private LoginResponse populateLoginResponse(LoginResponse loginResponse, String userType, BaseUser userResponse,
+                                                String loginId, String collectionName, String companyId,
+                                                String userName, String remoteAddress) {
+        UserSession userSession = retrieveUserSession(userType, userResponse, collectionName, companyId,
+                userName, remoteAddress);
+        createUserSession(userSession);
+        Map<String, String> sessionMap = retrieveUserSessionMap(userType, userResponse, userSession,
+                userName, collectionName, companyId);
+        List<Cookie> cookieList = retrieveCookieList(userType, userResponse, loginId, companyId, userSession);
+        loginResponse.setSessionMap(sessionMap);
+        loginResponse.setCookieList(cookieList);
+        return loginResponse;
+    }
+
+    private BaseUser retrieveUserModel(String userType, String collectionName, String loginId, String userName) {
+        try {
+            return new UserFactory().retrieveUserModel(userType, collectionName, loginId, userName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String retrieveAddressIdByUserType(String userType, String collectionName, String companyId) {
+        if (isUserVendor(userType)) {
+            return vendorRepoDBDao.getAddressIdForBranch(collectionName, companyId);
+        }
+        if (isUserCustomer(userType)) {
+            return customerRepoDBDao.retrieveAddressId(collectionName, companyId);
+        }
+        return null;
+    }
+
+    private static <T> CompletableFuture<T> supplyOn(Executor executor, Supplier<T> supplier) {
+        try {
+            return CompletableFuture.supplyAsync(supplier, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+
     private String retrieveLoginIdByUserType(String userType, DynamicForm dynamicForm) {
         return isUserVendor(userType) ? StringUtils.lowerCase(dynamicForm.get("vendorName")) :
                 StringUtils.lowerCase(dynamicForm.get("customerName"));
     }
 
     private String retrieveCompanyByUserType(String userType, String loginId) {
-        return isUserVendor(userType) ? sendMyKartDAO.getVendorCompanyIdFromLoginId(loginId) :
-                sendMyKartDAO.getCustomerCompanyIdFromLoginId(loginId);
+        return isUserVendor(userType) ? companyLookupCache.getVendorCompanyIdFromLoginId(loginId) :
+                companyLookupCache.getCustomerCompanyIdFromLoginId(loginId);
     }
 
     private boolean isPasswordCorrect(String password, String hash) {
@@ -113,7 +190,7 @@ public class LoginOperation implements LoginService {
     }
 
     private void createUserSession(UserSession userSession) {
-        sessionsDBDao.updateUserSession(userSession);
+        sessionStore.save(userSession);
     }
 
     public LoginResponse retrieveAdminLoginResponse(DynamicForm dynamicForm, SMKUser user) {
@@ -128,11 +205,11 @@ public class LoginOperation implements LoginService {
 
     private Map<String, String> retrieveAdminSessionMap(String userName) {
         Map<String, String> sessionMap = new HashMap<>();
-        sessionMap.put(COLLECTION_NAME, Global.encrypt(SMK_COLLECTION));
-        sessionMap.put(COMPANY_TYPE, Global.encrypt(SMK_COMPANY_TYPE));
-        sessionMap.put(COMPANY_ID, Global.encrypt(SMK_COLLECTION));
-        sessionMap.put(USER_TYPE, Global.encrypt(SMK_COLLECTION));
-        sessionMap.put(CUSTOMER_USER_NAME, Global.encrypt(userName));
+        sessionMap.put(COLLECTION_NAME, SessionCrypto.encrypt(SMK_COLLECTION));
+        sessionMap.put(COMPANY_TYPE, SessionCrypto.encrypt(SMK_COMPANY_TYPE));
+        sessionMap.put(COMPANY_ID, SessionCrypto.encrypt(SMK_COLLECTION));
+        sessionMap.put(USER_TYPE, SessionCrypto.encrypt(SMK_COLLECTION));
+        sessionMap.put(CUSTOMER_USER_NAME, SessionCrypto.encrypt(userName));
         return sessionMap;
     }
 
@@ -201,25 +278,33 @@ public class LoginOperation implements LoginService {
     @Override
     public Map<String, String> retrieveUserSessionMap(String userType, BaseUser user, UserSession userSession,
                                                       String userName, String collectionName, String companyId) {
+        return retrieveUserSessionMap(userType, user, userSession, userName, collectionName, companyId,
+                retrieveAddressIdByUserType(userType, collectionName, companyId));
+    }
+
+    private Map<String, String> retrieveUserSessionMap(String userType, BaseUser user, UserSession userSession,
+                                                       String userName, String collectionName, String companyId,
+                                                       String addressId) {
         if (isUserVendor(userType)) {
-            return retrieveVendorSessionMap(collectionName, companyId, (VendorUser) user, userSession, userName);
+            return retrieveVendorSessionMap(collectionName, companyId, (VendorUser) user, userSession, userName,
+                    addressId);
         }
         if (isUserCustomer(userType)) {
-            return retrieveCustomerSessionMap(collectionName, companyId, (CustomerUser) user, userSession, userName);
+            return retrieveCustomerSessionMap(collectionName, companyId, (CustomerUser) user, userSession, userName,
+                    addressId);
         }
         return null;
     }
 
     private Map<String, String> retrieveCustomerSessionMap(String collectionName, String companyId, CustomerUser user,
-                                                           UserSession userSession, String userName) {
+                                                           UserSession userSession, String userName, String addressId) {
         Map<String, String> sessionMap = retrieveSessionMap(collectionName, companyId, userName, userSession, USER_TYPE_CLIENT);
-        String addressId = customerRepoDBDao.retrieveAddressId(collectionName, companyId);
-                sessionMap.put(CUSTOMER_TYPE, Global.encrypt(user.getCustomerType()));
-        sessionMap.put(USER_FULL_NAME, Global.encrypt(user.getfName() + " " + user.getlName()));
-        sessionMap.put(COMPANY_TYPE, Global.encrypt(user.getType()));
-        sessionMap.put(USER_ROLE, Global.encrypt(user.getRole()));
-        sessionMap.put(COMPANY_NAME, Global.encrypt(user.getCompanyName()));
-        sessionMap.put(ADDRESS_ID,Global.encrypt(addressId));
+                sessionMap.put(CUSTOMER_TYPE, SessionCrypto.encrypt(user.getCustomerType()));
+        sessionMap.put(USER_FULL_NAME, SessionCrypto.encrypt(user.getfName() + " " + user.getlName()));
+        sessionMap.put(COMPANY_TYPE, SessionCrypto.encrypt(user.getType()));
+        sessionMap.put(USER_ROLE, SessionCrypto.encrypt(user.getRole()));
+        sessionMap.put(COMPANY_NAME, SessionCrypto.encrypt(user.getCompanyName()));
+        sessionMap.put(ADDRESS_ID,SessionCrypto.encrypt(addressId));
         return sessionMap;
     }
 
@@ -227,34 +312,53 @@ public class LoginOperation implements LoginService {
                                                    UserSession userSession, String userTypeClient) {
         Map<String, String> sessionMap = new HashMap<>();
         sessionMap.put(SESSION_ID, userSession.getSessionId());
-        sessionMap.put(COLLECTION_NAME, Global.encrypt(collectionName));
-        sessionMap.put(COMPANY_ID, Global.encrypt(companyId));
-        sessionMap.put(CUSTOMER_USER_NAME, Global.encrypt(username));
-        sessionMap.put(USER_TYPE, Global.encrypt(userTypeClient));
+        sessionMap.put(COLLECTION_NAME, SessionCrypto.encrypt(collectionName));
+        sessionMap.put(COMPANY_ID, SessionCrypto.encrypt(companyId));
+        sessionMap.put(CUSTOMER_USER_NAME, SessionCrypto.encrypt(username));
+        sessionMap.put(USER_TYPE, SessionCrypto.encrypt(userTypeClient));
         return sessionMap;
     }
 
     private Map<String, String> retrieveVendorSessionMap(String collectionName, String companyId, VendorUser user,
-                                                         UserSession userSession, String username) {
-        String addressId = vendorRepoDBDao.getAddressIdForBranch(collectionName, companyId);
+                                                         UserSession userSession, String username, String addressId) {
         Map<String, String> sessionMap = retrieveSessionMap(collectionName, companyId, username, userSession, USER_TYPE_VENDOR);
-        sessionMap.put(VENDOR_TYPE, Global.encrypt(user.getVendorType()));
-        sessionMap.put(ADDRESS_ID, Global.encrypt(addressId));
-        sessionMap.put(USER_FULL_NAME, Global.encrypt(user.getfName() + " " + user.getlName()));
-        sessionMap.put(COMPANY_TYPE, Global.encrypt(user.getType()));
-        sessionMap.put(USER_ROLE, Global.encrypt(user.getRole()));
-        sessionMap.put(COMPANY_NAME, Global.encrypt(user.getCompanyName()));
-        sessionMap.put(CUSTOMER_TYPE, Global.encrypt(user.getVendorType()));
+        sessionMap.put(VENDOR_TYPE, SessionCrypto.encrypt(user.getVendorType()));
+        sessionMap.put(ADDRESS_ID, SessionCrypto.encrypt(addressId));
+        sessionMap.put(USER_FULL_NAME, SessionCrypto.encrypt(user.getfName() + " " + user.getlName()));
+        sessionMap.put(COMPANY_TYPE, SessionCrypto.encrypt(user.getType()));
+        sessionMap.put(USER_ROLE, SessionCrypto.encrypt(user.getRole()));
+        sessionMap.put(COMPANY_NAME, SessionCrypto.encrypt(user.getCompanyName()));
+        sessionMap.put(CUSTOMER_TYPE, SessionCrypto.encrypt(user.getVendorType()));
         if (user.getOperations().contains(DOMESTIC_OPERATION)) {
-            sessionMap.put(OPERATION_TYPE_DOMESTIC, Global.encrypt(DOMESTIC_OPERATION));
+            sessionMap.put(OPERATION_TYPE_DOMESTIC, SessionCrypto.encrypt(DOMESTIC_OPERATION));
         }
         if (user.getOperations().contains(SHORT_HAUL_FTL_OPERATION)) {
-            sessionMap.put(OPERATION_TYPE_SFTL, Global.encrypt(SHORT_HAUL_FTL_OPERATION));
+            sessionMap.put(OPERATION_TYPE_SFTL, SessionCrypto.encrypt(SHORT_HAUL_FTL_OPERATION));
         }
         if (user.getOperations().contains(FTL_CONTRACT_OPERATION)) {
-            sessionMap.put(OPERATION_TYPE_FTL, Global.encrypt(FTL_CONTRACT_OPERATION));
+            sessionMap.put(OPERATION_TYPE_FTL, SessionCrypto.encrypt(FTL_CONTRACT_OPERATION));
         }
         return sessionMap;
     }
 
+    private static class LoginContext {
+        private final BaseUser user;
+        private final String companyId;
+        private final String addressId;
+
+        LoginContext(BaseUser user, String companyId) {
+            this(user, companyId, null);
+        }
+
+        private LoginContext(BaseUser user, String companyId, String addressId) {
+            this.user = user;
+            this.companyId = companyId;
+            this.addressId = addressId;
+        }
+
+        LoginContext withAddressId(String addressId) {
+            return new LoginContext(user, companyId, addressId);
+        }
+    }
+
 }
@@ -0,0 +1,182 @@
+package util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+import models.CustomerNotification;
+import models.VendorNotification;
+import models.fulltruckload.Quotation;
+import models.vendororderbooking.ContractResponse;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.Encoder;
+import org.bson.codecs.EncoderContext;
+
+/**
+ * Encodes the models FtlContractOperation stores straight to a Document,
+ * without writing and re-parsing JSON text. The contract models go through
+ * ObjectMapperUtil's mapper and the notifications through Gson, as before,
+ * so names, annotations and null handling are unchanged; their trees are
+ * written to BSON with the types Document.parse gave the same JSON: integers
+ * as Int32 when they fit and Int64 otherwise, every other number as Double.
+ */
+public final class ModelCodecs {
+
+    private static final Pattern INTEGER = Pattern.compile("-?\\d+");
+    private static final Gson GSON = new Gson();
+    private static final Map<Class<?>, Encoder<?>> ENCODERS = new HashMap<>();
+
+    static {
+        register(new JacksonTreeEncoder<>(Quotation.class));
+        register(new JacksonTreeEncoder<>(ContractResponse.Customer.class));
+        register(new GsonTreeEncoder<>(VendorNotification.class));
+        register(new GsonTreeEncoder<>(CustomerNotification.class));
+    }
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+    private static final EncoderContext ENCODER_CONTEXT = EncoderContext.builder().build();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private ModelCodecs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Document toDocument(T value) {
+        Encoder<T> encoder = (Encoder<T>) ENCODERS.get(value.getClass());
+        if (encoder == null) {
+            throw new IllegalArgumentException("No encoder for " + value.getClass().getName());
+        }
+        BsonDocument bsonDocument = new BsonDocument();
+        encoder.encode(new BsonDocumentWriter(bsonDocument), value, ENCODER_CONTEXT);
+        return DOCUMENT_CODEC.decode(new BsonDocumentReader(bsonDocument), DECODER_CONTEXT);
+    }
+
+    private static void register(Encoder<?> encoder) {
+        ENCODERS.put(encoder.getEncoderClass(), encoder);
+    }
+
+    private static void writeNumber(BsonWriter writer, String number) {
+        if (INTEGER.matcher(number).matches()) {
+            try {
+                long value = Long.parseLong(number);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    writer.writeInt32((int) value);
+                } else {
+                    writer.writeInt64(value);
+                }
+                return;
+            } catch (NumberFormatException e) {
+                // wider than a long: Document.parse read these as a double
+            }
+        }
+        writer.writeDouble(Double.parseDouble(number));
+    }
+
+    private static final class JacksonTreeEncoder<T> implements Encoder<T> {
+        private final Class<T> encoderClass;
+
+        JacksonTreeEncoder(Class<T> encoderClass) {
+            this.encoderClass = encoderClass;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+            write(writer, ObjectMapperUtil.fetchObjectMapper().valueToTree(value));
+        }
+
+        @Override
+        public Class<T> getEncoderClass() {
+            return encoderClass;
+        }
+
+        private void write(BsonWriter writer, JsonNode node) {
+            switch (node.getNodeType()) {
+                case OBJECT:
+                    writer.writeStartDocument();
+                    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                    while (fields.hasNext()) {
+                        Map.Entry<String, JsonNode> field = fields.next();
+                        writer.writeName(field.getKey());
+                        write(writer, field.getValue());
+                    }
+                    writer.writeEndDocument();
+                    break;
+                case ARRAY:
+                    writer.writeStartArray();
+                    node.forEach(element -> write(writer, element));
+                    writer.writeEndArray();
+                    break;
+                case NUMBER:
+                    if (node.isFloatingPointNumber() && !Double.isFinite(node.doubleValue())) {
+                        writer.writeString(node.asText());
+                    } else {
+                        writeNumber(writer, node.asText());
+                    }
+                    break;
+                case BOOLEAN:
+                    writer.writeBoolean(node.booleanValue());
+                    break;
+                case NULL:
+                case MISSING:
+                    writer.writeNull();
+                    break;
+                default:
+                    writer.writeString(node.asText());
+            }
+        }
+    }
+
+    private static final class GsonTreeEncoder<T> implements Encoder<T> {
+        private final Class<T> encoderClass;
+
+        GsonTreeEncoder(Class<T> encoderClass) {
+            this.encoderClass = encoderClass;
+        }
+
+        @Override
+        public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+            write(writer, GSON.toJsonTree(value));
+        }
+
+        @Override
+        public Class<T> getEncoderClass() {
+            return encoderClass;
+        }
+
+        private void write(BsonWriter writer, JsonElement element) {
+            if (element.isJsonObject()) {
+                writer.writeStartDocument();
+                for (Map.Entry<String, JsonElement> field : element.getAsJsonObject().entrySet()) {
+                    writer.writeName(field.getKey());
+                    write(writer, field.getValue());
+                }
+                writer.writeEndDocument();
+            } else if (element.isJsonArray()) {
+                writer.writeStartArray();
+                element.getAsJsonArray().forEach(item -> write(writer, item));
+                writer.writeEndArray();
+            } else if (element.isJsonNull()) {
+                writer.writeNull();
+            } else {
+                JsonPrimitive primitive = element.getAsJsonPrimitive();
+                if (primitive.isBoolean()) {
+                    writer.writeBoolean(primitive.getAsBoolean());
+                } else if (primitive.isNumber()) {
+                    writeNumber(writer, primitive.getAsString());
+                } else {
+                    writer.writeString(primitive.getAsString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for lookups that rarely change. Entries older than
+ * refreshAfterMillis are still served while a reload runs on the refresher,
+ * misses are remembered for negativeTtlMillis, and everything expires after
+ * ttlMillis, so without an invalidation a changed value can be served for
+ * up to ttlMillis after it was loaded. Each load registers a token for its
+ * key; invalidating the key drops the token, so a load that was already
+ * running does not write back the value it read before the invalidation.
+ */
+public class NearCache<K, V> {
+
+    private final BoundedCache<K, Optional<V>> entries;
+    private final Function<K, V> loader;
+    private final Executor refresher;
+    private final long refreshAfterMillis;
+    private final long negativeTtlMillis;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<K, Object> loadTokens = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public NearCache(int maxEntries, long ttlMillis, long refreshAfterMillis, long negativeTtlMillis,
+                     Function<K, V> loader, Executor refresher) {
+        this.entries = new BoundedCache<>(maxEntries, ttlMillis);
+        this.loader = loader;
+        this.refresher = refresher;
+        this.refreshAfterMillis = refreshAfterMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    public V get(K key) {
+        BoundedCache.Entry<Optional<V>> entry = entries.getEntry(key);
+        long age = entry == null ? 0 : System.currentTimeMillis() - entry.writtenAt;
+        if (entry == null || (!entry.value.isPresent() && age >= negativeTtlMillis)) {
+            misses.increment();
+            return load(key);
+        }
+        hits.increment();
+        if (entry.value.isPresent() && age >= refreshAfterMillis) {
+            refresh(key);
+        }
+        return entry.value.orElse(null);
+    }
+
+    public synchronized void invalidate(K key) {
+        loadTokens.remove(key);
+        entries.invalidate(key);
+    }
+
+    public synchronized void invalidateAll() {
+        loadTokens.clear();
+        entries.invalidateAll();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    private V load(K key) {
+        Object token = new Object();
+        loadTokens.put(key, token);
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            loadTokens.remove(key, token);
+            throw e;
+        }
+        synchronized (this) {
+            if (loadTokens.remove(key, token)) {
+                entries.put(key, Optional.ofNullable(value));
+            }
+        }
+        return value;
+    }
+
+    private void refresh(K key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package util;
+
+import com.typesafe.config.Config;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Snowflake-style ids: 41 bits of milliseconds since EPOCH_MILLIS, 10 bits of
+ * node id and a 12-bit per-millisecond sequence. Ids are built with a CAS on
+ * the last issued id. When a millisecond's sequence runs out, or the clock
+ * goes backwards, the generator keeps counting from the last id, so ids stay
+ * unique and increasing on each node.
+ *
+ * nextId(prefix) appends ID_MARKER and the id zero-padded to 19 digits. The
+ * legacy suffix was a 13-digit millisecond timestamp starting with '1', so
+ * marked ids sort after every legacy id, and among themselves in id order.
+ * The node id is read from the notification.node.id setting, e.g.
+ * notification.node.id = ${?NOTIFICATION_NODE_ID} in application.conf. It
+ * defaults to 0, which is only safe while a single node issues ids; every
+ * node of a cluster must be given a distinct value.
+ */
+@Singleton
+public class NotificationIdGenerator {
+    private static final long EPOCH_MILLIS = 1577836800000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ID_DIGITS = 19;
+    private static final char ID_MARKER = '9';
+    private static final String NODE_ID_PATH = "notification.node.id";
+    private static final long DEFAULT_NODE_ID = 0;
+
+    private final long nodeBits;
+    private final AtomicLong lastId = new AtomicLong();
+
+    @Inject
+    public NotificationIdGenerator(Config config) {
+        this(config.hasPath(NODE_ID_PATH) ? config.getLong(NODE_ID_PATH) : DEFAULT_NODE_ID);
+    }
+
+    public NotificationIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastId.get();
+            long lastTime = last >>> TIME_SHIFT;
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next;
+            if (now > lastTime) {
+                next = (now << TIME_SHIFT) | nodeBits;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1;
+            } else {
+                next = ((lastTime + 1) << TIME_SHIFT) | nodeBits;
+            }
+            if (lastId.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    public String nextId(String prefix) {
+        String id = Long.toString(nextId());
+        StringBuilder formatted = new StringBuilder(prefix.length() + ID_DIGITS + 1).append(prefix).append(ID_MARKER);
+        for (int i = id.length(); i < ID_DIGITS; i++) {
+            formatted.append('0');
+        }
+        return formatted.append(id).toString();
+    }
+}
@@ -0,0 +1,236 @@
+package services;
+
+import com.mongodb.client.model.UpdateManyModel;
+import com.mongodb.client.model.WriteModel;
+import dao.CustomersDBDao;
+import dao.UsersDBDao;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.inject.ApplicationLifecycle;
+
+import static constants.MongoDatabaseKeyNames.PUSH_OPERATOR;
+import static constants.SystemConstants.CUSTOMER_RECIPIENT;
+import static constants.SystemConstants.VENDOR_RECIPIENT;
+
+/**
+ * Delivers vendor and customer notifications off the request path. Queued
+ * notifications are pushed into the admins' notification lists with one
+ * bulk write per recipient collection and then sent through
+ * NotificationService. A failed step is retried with backoff, up to
+ * MAX_ATTEMPTS times; a notification already stored is not written again,
+ * and the push only matches admins whose list does not hold its id yet, so a
+ * retried bulk write that partly succeeded does not duplicate it.
+ *
+ * A notification that finds the queue full is dropped and logged rather than
+ * delivered on the caller's thread. On shutdown the pending retries are moved
+ * back into the queue for a final dispatch instead of waiting out their
+ * backoff; whatever still fails then is counted as dropped.
+ */
+@Singleton
+public class NotificationOutbox {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationOutbox.class);
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long DISPATCH_INTERVAL_MILLIS = 200;
+    private static final long RETRY_BACKOFF_MILLIS = 1000;
+    private static final String ADMIN = "admin";
+    private static final String NOTIFICATIONS = "notifications";
+
+    private final UsersDBDao usersDBDao;
+    private final CustomersDBDao customersDBDao;
+    private final NotificationService notificationService;
+    private final BlockingQueue<OutboxEntry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Set<OutboxEntry> retrying = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor dispatcher;
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    @Inject
+    public NotificationOutbox(UsersDBDao usersDBDao, CustomersDBDao customersDBDao,
+                              NotificationService notificationService, ApplicationLifecycle lifecycle) {
+        this.usersDBDao = usersDBDao;
+        this.customersDBDao = customersDBDao;
+        this.notificationService = notificationService;
+        this.dispatcher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "notification-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        dispatcher.scheduleWithFixedDelay(this::dispatch, DISPATCH_INTERVAL_MILLIS, DISPATCH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        lifecycle.addStopHook(() -> {
+            dispatcher.shutdown();
+            for (OutboxEntry entry : retrying) {
+                if (retrying.remove(entry)) {
+                    enqueue(entry);
+                }
+            }
+            dispatch();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    public void enqueueVendorNotification(String vendorCollectionName, String vendorId, Document notification) {
+        enqueue(new OutboxEntry(VENDOR_RECIPIENT, vendorCollectionName, vendorId, notification));
+    }
+
+    public void enqueueCustomerNotification(String collectionName, String companyId, Document notification) {
+        enqueue(new OutboxEntry(CUSTOMER_RECIPIENT, collectionName, companyId, notification));
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public long deliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public long retryCount() {
+        return retryCount.get();
+    }
+
+    public long droppedCount() {
+        return droppedCount.get();
+    }
+
+    private void enqueue(OutboxEntry entry) {
+        if (!queue.offer(entry)) {
+            droppedCount.incrementAndGet();
+            LOGGER.warn("Notification outbox full, dropped {} notification {} for {}", entry.recipient,
+                    entry.notification.get("id"), entry.ownerId);
+        }
+    }
+
+    synchronized void dispatch() {
+        List<OutboxEntry> batch = new ArrayList<>(BATCH_SIZE);
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            Map<String, List<OutboxEntry>> byCollection = new LinkedHashMap<>();
+            for (OutboxEntry entry : batch) {
+                byCollection.computeIfAbsent(entry.recipient + ":" + entry.collectionName, key -> new ArrayList<>())
+                        .add(entry);
+            }
+            byCollection.values().forEach(this::deliver);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<OutboxEntry> entries) {
+        List<OutboxEntry> unpersisted = new ArrayList<>();
+        for (OutboxEntry entry : entries) {
+            if (!entry.persisted) {
+                unpersisted.add(entry);
+            }
+        }
+        if (!unpersisted.isEmpty()) {
+            try {
+                persist(unpersisted);
+                unpersisted.forEach(entry -> entry.persisted = true);
+            } catch (RuntimeException e) {
+                LOGGER.error("Storing notifications in " + entries.get(0).collectionName + " failed", e);
+                unpersisted.forEach(this::retry);
+            }
+        }
+        Map<String, List<String>> recipientsByOwner = new HashMap<>();
+        for (OutboxEntry entry : entries) {
+            if (!entry.persisted) {
+                continue;
+            }
+            try {
+                List<String> users = recipientsByOwner.computeIfAbsent(entry.ownerId,
+                        ownerId -> retrieveRecipients(entry.recipient, entry.collectionName, ownerId));
+                notificationService.pushNotification(entry.notification, entry.recipient, users);
+                deliveredCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                LOGGER.error("Sending notification to " + entry.ownerId + " failed", e);
+                retry(entry);
+            }
+        }
+    }
+
+    private void persist(List<OutboxEntry> entries) {
+        OutboxEntry first = entries.get(0);
+        boolean vendorRecipient = VENDOR_RECIPIENT.equals(first.recipient);
+        List<WriteModel<Document>> writes = new ArrayList<>(entries.size());
+        for (OutboxEntry entry : entries) {
+            Document searchQuery = new Document(vendorRecipient ? "vId" : "cId", entry.ownerId).append("role", ADMIN);
+            Object notificationId = entry.notification.get("id");
+            if (notificationId != null) {
+                searchQuery.append(NOTIFICATIONS + ".id", new Document("$ne", notificationId));
+            }
+            writes.add(new UpdateManyModel<>(searchQuery,
+                    new Document(PUSH_OPERATOR, new Document(NOTIFICATIONS, entry.notification))));
+        }
+        if (vendorRecipient) {
+            usersDBDao.bulkWriteIntoCollection(first.collectionName, writes);
+        } else {
+            customersDBDao.bulkWriteIntoCollection(first.collectionName, writes);
+        }
+    }
+
+    private List<String> retrieveRecipients(String recipient, String collectionName, String ownerId) {
+        if (VENDOR_RECIPIENT.equals(recipient)) {
+            return new ArrayList<>(usersDBDao.retrieveVendorAdminIds(collectionName, ownerId));
+        }
+        List<String> customerUsers = new ArrayList<>();
+        List<Document> customers = customersDBDao.retrieveCustomerUsersByCompanyId(collectionName, ownerId);
+        customers.forEach(customer -> customerUsers.add(customer.getString("uId")));
+        return customerUsers;
+    }
+
+    private void retry(OutboxEntry entry) {
+        if (++entry.attempts >= MAX_ATTEMPTS || dispatcher.isShutdown()) {
+            droppedCount.incrementAndGet();
+            return;
+        }
+        retryCount.incrementAndGet();
+        retrying.add(entry);
+        try {
+            dispatcher.schedule(() -> {
+                if (retrying.remove(entry)) {
+                    enqueue(entry);
+                }
+            }, RETRY_BACKOFF_MILLIS * entry.attempts, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (retrying.remove(entry)) {
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static class OutboxEntry {
+        private final String recipient;
+        private final String collectionName;
+        private final String ownerId;
+        private final Document notification;
+        private boolean persisted;
+        private int attempts;
+
+        OutboxEntry(String recipient, String collectionName, String ownerId, Document notification) {
+            this.recipient = recipient;
+            this.collectionName = collectionName;
+            this.ownerId = ownerId;
+            this.notification = notification;
+        }
+    }
+}
@@ -1,67 +1,46 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Paths;
+import primes.MappedPrimeTable;
+import primes.PrimePagePipeline;
+import primes.PrimeSieve;
+import primes.RowColumnPagePrinter;
+
 public class PrintPrimes {
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException, InterruptedException {
     final int M = 1000;
     final int RR = 50;
     final int CC = 4;
     final int WW = 10;
-    final int ORDMAX = 30;
-    int P[] = new int[M + 1];
+    final int QUEUED_PAGES = 16;
+    boolean PIPELINED = args.length > 0 && args[0].equals("--pipelined");
+    RowColumnPagePrinter printer = new RowColumnPagePrinter(RR, CC, WW,
+        "The First " + M + " Prime Numbers",
+        Channels.newChannel(new FileOutputStream(FileDescriptor.out)));
+
+    if (PIPELINED)
+      new PrimePagePipeline(new PrimeSieve(), RR * CC, QUEUED_PAGES).print(M, printer);
+    else
+      printFromTable(M, RR * CC, printer);
+  }
+
+  private static void printFromTable(int M, int PAGESIZE, RowColumnPagePrinter printer) throws IOException {
+    int PAGE[] = new int[PAGESIZE];
     int PAGENUMBER;
     int PAGEOFFSET;
-    int ROWOFFSET;
-    int C;
-    int J;
-    int K;
-    boolean JPRIME;
-    int ORD;
-    int SQUARE;
-    int N;
-    int MULT[] = new int[ORDMAX + 1];
-
-    J = 1;
-    K = 1;
-    P[1] = 2;
-    ORD = 2;
-    SQUARE = 9;
 
-    while (K < M) {
-      do {
-        J = J + 2;
-        if (J == SQUARE) {
-          ORD = ORD + 1;
-          SQUARE = P[ORD] * P[ORD];
-          MULT[ORD - 1] = J;
-        }
-        N = 2;
-        JPRIME = true;
-        while (N < ORD && JPRIME) {
-          while (MULT[N] < J)
-            MULT[N] = MULT[N] + P[N] + P[N];
-          if (MULT[N] == J)
-            JPRIME = false;
-          N = N + 1;
-        }
-      } while (!JPRIME);
-      K = K + 1;
-      P[K] = J;
-    }
-    {
+    try (MappedPrimeTable P = MappedPrimeTable.open(Paths.get("primes.table"))) {
+      P.ensureSize(M);
       PAGENUMBER = 1;
-      PAGEOFFSET = 1;
-      while (PAGEOFFSET <= M) {
-        System.out.println("The First " + M +
-                             " Prime Numbers --- Page " + PAGENUMBER);
-        System.out.println("");
-        for (ROWOFFSET = PAGEOFFSET; ROWOFFSET < PAGEOFFSET + RR; ROWOFFSET++){
-          for (C = 0; C < CC;C++)
-            if (ROWOFFSET + C * RR <= M)
-              System.out.format("%10d", P[ROWOFFSET + C * RR]);
-          System.out.println("");
-        }
-        System.out.println("\f");
+      for (PAGEOFFSET = 0; PAGEOFFSET < M; PAGEOFFSET += PAGE.length) {
+        int LENGTH = Math.min(PAGE.length, M - PAGEOFFSET);
+        P.copyTo(PAGEOFFSET, PAGE, 0, LENGTH);
+        printer.printPage(PAGENUMBER, PAGE, 0, LENGTH);
         PAGENUMBER = PAGENUMBER + 1;
-        PAGEOFFSET = PAGEOFFSET + RR * CC;
       }
     }
+    printer.flush();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memoizes Global.decrypt for session values, which are decrypted on every
+ * request with the same few inputs. Only decrypts are cached, keyed on the
+ * ciphertext; encrypt always produces a fresh ciphertext and only records
+ * its plaintext for the decrypts that follow. The cache is split into
+ * STRIPES independently locked parts so concurrent requests do not contend
+ * on one lock.
+ */
+public final class SessionCrypto {
+    private static final int STRIPES = 16;
+    private static final int MAX_ENTRIES_PER_STRIPE = 10000 / STRIPES;
+    private static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    @SuppressWarnings("unchecked")
+    private static final BoundedCache<String, String>[] DECRYPTED = new BoundedCache[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            DECRYPTED[i] = new BoundedCache<>(MAX_ENTRIES_PER_STRIPE, TTL_MILLIS);
+        }
+    }
+
+    private SessionCrypto() {
+    }
+
+    public static String decrypt(String cipherText) {
+        if (cipherText == null) {
+            return Global.decrypt(null);
+        }
+        return stripe(cipherText).get(cipherText, Global::decrypt);
+    }
+
+    public static String encrypt(String plainText) {
+        String cipherText = Global.encrypt(plainText);
+        if (plainText != null && cipherText != null) {
+            stripe(cipherText).put(cipherText, plainText);
+        }
+        return cipherText;
+    }
+
+    public static void invalidateAll() {
+        for (BoundedCache<String, String> stripe : DECRYPTED) {
+            stripe.invalidateAll();
+        }
+    }
+
+    public static long decryptHitCount() {
+        long hits = 0;
+        for (BoundedCache<String, String> stripe : DECRYPTED) {
+            hits += stripe.hitCount();
+        }
+        return hits;
+    }
+
+    public static long decryptMissCount() {
+        long misses = 0;
+        for (BoundedCache<String, String> stripe : DECRYPTED) {
+            misses += stripe.missCount();
+        }
+        return misses;
+    }
+
+    private static BoundedCache<String, String> stripe(String cipherText) {
+        int hash = cipherText.hashCode();
+        return DECRYPTED[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,167 @@
+package services.loginservice;
+
+import dao.SessionsDBDao;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import models.UserSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.cache.SyncCacheApi;
+import play.inject.ApplicationLifecycle;
+
+/**
+ * Serves sessions from the cache and persists them behind the request. Saves
+ * are coalesced by session id and flushed as bulk upserts at most
+ * FLUSH_INTERVAL_MILLIS later. Once MAX_PENDING sessions are waiting, a save
+ * for a session that is not already pending writes it on the caller's
+ * thread instead: while the database lags that far behind, logins pay for
+ * one upsert each rather than the pending map growing without bound.
+ * Whatever is pending is flushed when the application stops, and a save
+ * made after that is flushed on the caller's thread; sessions that cannot
+ * be written then are logged and counted as lost.
+ */
+@Singleton
+public class WriteBehindSessionStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindSessionStore.class);
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_PENDING = 10000;
+
+    private final SyncCacheApi cacheApi;
+    private final SessionsDBDao sessionsDBDao;
+    private final Map<String, UserSession> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong flushedSessions = new AtomicLong();
+    private final AtomicLong overflowWrites = new AtomicLong();
+    private final AtomicLong lostSessions = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @Inject
+    public WriteBehindSessionStore(SyncCacheApi cacheApi, SessionsDBDao sessionsDBDao, ApplicationLifecycle lifecycle) {
+        this.cacheApi = cacheApi;
+        this.sessionsDBDao = sessionsDBDao;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        lifecycle.addStopHook(() -> {
+            flusher.shutdown();
+            flush();
+            reportLostSessions();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    public void save(UserSession userSession) {
+        String sessionId = userSession.getSessionId();
+        cacheApi.set(sessionId, userSession);
+        if (pending.size() >= MAX_PENDING && !pending.containsKey(sessionId)) {
+            overflowWrites.incrementAndGet();
+            write(Collections.singletonList(userSession));
+            return;
+        }
+        pending.put(sessionId, userSession);
+        if (flusher.isShutdown()) {
+            flush();
+            if (pending.remove(sessionId, userSession)) {
+                lostSessions.incrementAndGet();
+                LOGGER.error("Session {} saved after shutdown could not be written", sessionId);
+            }
+        }
+    }
+
+    public synchronized void flush() {
+        long start = System.nanoTime();
+        boolean written = false;
+        List<UserSession> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        for (String sessionId : new ArrayList<>(pending.keySet())) {
+            UserSession userSession = pending.remove(sessionId);
+            if (userSession != null) {
+                batch.add(userSession);
+            }
+            if (batch.size() == MAX_BATCH_SIZE) {
+                written |= write(batch);
+                batch = new ArrayList<>(MAX_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            written |= write(batch);
+        }
+        if (written) {
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private boolean write(List<UserSession> batch) {
+        try {
+            sessionsDBDao.updateUserSessions(batch);
+            flushCount.incrementAndGet();
+            flushedSessions.addAndGet(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            failedFlushCount.incrementAndGet();
+            for (UserSession userSession : batch) {
+                pending.putIfAbsent(userSession.getSessionId(), userSession);
+            }
+            LOGGER.error("Writing " + batch.size() + " sessions failed", e);
+            return false;
+        }
+    }
+
+    private void reportLostSessions() {
+        List<String> lost = new ArrayList<>();
+        for (String sessionId : new ArrayList<>(pending.keySet())) {
+            if (pending.remove(sessionId) != null) {
+                lost.add(sessionId);
+            }
+        }
+        if (lost.isEmpty()) {
+            return;
+        }
+        lostSessions.addAndGet(lost.size());
+        LOGGER.error("WriteBehindSessionStore stopped with {} unwritten sessions: {}", lost.size(), lost);
+    }
+
+    public int queueDepth() {
+        return pending.size();
+    }
+
+    public long lastFlushMillis() {
+        return lastFlushMillis;
+    }
+
+    public long flushCount() {
+        return flushCount.get();
+    }
+
+    public long failedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    public long flushedSessions() {
+        return flushedSessions.get();
+    }
+
+    public long overflowWrites() {
+        return overflowWrites.get();
+    }
+
+    public long lostSessions() {
+        return lostSessions.get();
+    }
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import constants.PaymentStatus;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import services.billservice.BillRowEncoder;
+import util.Operations;
+
+/**
+ * Encodes a batch of synthetic bill documents with the original billTable row
+ * mapping and with BillRowEncoder.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillRowEncoderBenchmark {
+  private static final long DAY = 24L * 60 * 60 * 1000;
+
+  @Param({"100000"})
+  public int documents;
+
+  private List<Document> bills;
+  private BillRowEncoder encoder;
+  private String[] row;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    long now = System.currentTimeMillis();
+    bills = new ArrayList<>(documents);
+    for (int i = 0; i < documents; i++) {
+      bills.add(new Document("id", "BILL" + i)
+          .append("status", random.nextInt(4))
+          .append("vendorName", "vendor " + random.nextInt(50))
+          .append("product", "product " + random.nextInt(200))
+          .append("generatedTime", new Date(now - random.nextInt(365) * DAY))
+          .append("interestTime", new Date(now + random.nextInt(90) * DAY))
+          .append("totalAmount", random.nextDouble() * 100000)
+          .append("totalAmountPaid", random.nextDouble() * 50000)
+          .append("totalAmountRemaining", random.nextDouble() * 50000)
+          .append("vId", "v" + random.nextInt(50))
+          .append("contractId", (random.nextBoolean() ? "FTL" : "LTL") + random.nextInt(1000))
+          .append("cId", "C" + random.nextInt(20)));
+    }
+    encoder = new BillRowEncoder();
+    row = new String[BillRowEncoder.COLUMNS];
+  }
+
+  @Benchmark
+  public void originalRowMapping(Blackhole blackhole) {
+    for (Document document : bills) {
+      blackhole.consume(originalRow(document));
+    }
+  }
+
+  @Benchmark
+  public void encoderToList(Blackhole blackhole) {
+    for (Document document : bills) {
+      blackhole.consume(encoder.encode(document));
+    }
+  }
+
+  @Benchmark
+  public void encoderIntoReusedRow(Blackhole blackhole) {
+    for (Document document : bills) {
+      encoder.encode(document, row);
+      blackhole.consume(row);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(BillRowEncoderBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+
+  private static ArrayList<String> originalRow(Document document) {
+    document.putIfAbsent("product", "");
+    document.putIfAbsent("pId", "");
+    ArrayList<String> data = new ArrayList<>();
+    data.add(document.getString("id"));
+    data.add(PaymentStatus.fromId(document.getInteger("status")));
+    data.add(document.getString("vendorName").toUpperCase());
+    data.add(document.getString("product").toUpperCase());
+    data.add(new DateTime(document.getDate("generatedTime")).toString("dd-MM-YYYY"));
+    data.add(new DateTime(document.getDate("interestTime")).toString("dd-MM-YYYY"));
+    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmount")) + "");
+    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmountPaid")) + "");
+    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmountRemaining")) + "");
+    data.add(document.getString("vId").toUpperCase());
+    data.add(document.getString("contractId"));
+    data.add(document.getString("cId").toLowerCase());
+    if ((document.getString("contractId")).contains("FTL")) {
+      data.add("FTL");
+    } else {
+      data.add("LTL");
+    }
+    return data;
+  }
+}
@@ -0,0 +1,190 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import constants.NotificationConstants;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import models.CustomerNotification;
+import models.VendorNotification;
+import models.fulltruckload.Quotation;
+import models.vendororderbooking.ContractResponse;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import util.ModelCodecs;
+import util.ObjectMapperUtil;
+
+import static constants.SystemConstants.DIRECT_APPROVAL;
+
+/**
+ * Converts the FtlContractOperation models to a Document through the old
+ * JSON round-trips and through ModelCodecs. Setup fails if the two paths
+ * disagree on any model, checked on instances with every settable property
+ * populated and compared with exact BSON types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelDocumentBenchmark {
+  private static final JsonWriterSettings EXTENDED = JsonWriterSettings.builder()
+      .outputMode(JsonMode.EXTENDED).build();
+
+  private Quotation quotation;
+  private ContractResponse.Customer customer;
+  private VendorNotification notification;
+
+  @Setup(Level.Trial)
+  public void setUp() throws ReflectiveOperationException, JsonProcessingException {
+    ContractResponse.Customer.Billing billing = new ContractResponse.Customer.Billing();
+    billing.setType(DIRECT_APPROVAL);
+    billing.setScheduleType("date");
+    billing.setBillingVId("VENDOR001");
+    billing.setCustomerId("CUSTOMER001");
+    billing.setCompanyId("customer_collection_001");
+    billing.setCompanyName("Customer One");
+
+    customer = new ContractResponse.Customer();
+    customer.setBilling(billing);
+    customer.setApproved(false);
+    customer.setCustomerName("Customer One");
+    customer.setCustomerId("CUSTOMER001");
+    customer.setCustomerCId("customer_collection_001");
+
+    quotation = new Quotation();
+    quotation.setBillingVendorId("VENDOR001");
+    quotation.setBillingScheduleType("date");
+    quotation.setCustomerId("CUSTOMER001");
+    quotation.setCompanyName("Customer One");
+    quotation.setCompanyId("customer_collection_001");
+
+    notification = new VendorNotification();
+    notification.setId("NOTIFICATION-0000000000000000001");
+    notification.setType(NotificationConstants.NOTIFICATION_TYPE.PRODUCT.value);
+    notification.setTitle("Product Approved");
+    notification.setText("FTL contract approved");
+    notification.setCreator("user@example.com");
+    notification.setPriority(NotificationConstants.PRIORITY.NORMAL_PRIORITY.value);
+    notification.setActionId("CONTRACT001");
+    notification.setSourceName("Customer One");
+    notification.setSourceId("CUSTOMER001");
+    notification.setSourceCollectionId("customer_collection_001");
+
+    ObjectMapper mapper = ObjectMapperUtil.fetchObjectMapper();
+    Gson gson = new Gson();
+    Quotation fullQuotation = populate(new Quotation());
+    checkParity(Document.parse(mapper.writeValueAsString(fullQuotation)), ModelCodecs.toDocument(fullQuotation));
+    ContractResponse.Customer fullCustomer = populate(new ContractResponse.Customer());
+    checkParity(Document.parse(mapper.writeValueAsString(fullCustomer)), ModelCodecs.toDocument(fullCustomer));
+    VendorNotification fullVendorNotification = populate(new VendorNotification());
+    checkParity(Document.parse(gson.toJson(fullVendorNotification)),
+        ModelCodecs.toDocument(fullVendorNotification));
+    CustomerNotification fullCustomerNotification = populate(new CustomerNotification());
+    checkParity(Document.parse(gson.toJson(fullCustomerNotification)),
+        ModelCodecs.toDocument(fullCustomerNotification));
+  }
+
+  // Document.equals compares values with equals(), so an Int32 never
+  // matches an Int64 and a Double never matches either.
+  private static void checkParity(Document expected, Document actual) {
+    if (!expected.equals(actual)) {
+      throw new IllegalStateException("Codec output " + actual.toJson(EXTENDED)
+          + " differs from the JSON path " + expected.toJson(EXTENDED));
+    }
+  }
+
+  private static <T> T populate(T bean) throws ReflectiveOperationException {
+    int seed = 1;
+    for (Method setter : bean.getClass().getMethods()) {
+      if (!setter.getName().startsWith("set") || setter.getParameterCount() != 1) {
+        continue;
+      }
+      Object value = sampleValue(setter.getParameterTypes()[0], seed++);
+      if (value != null) {
+        setter.invoke(bean, value);
+      }
+    }
+    return bean;
+  }
+
+  private static Object sampleValue(Class<?> type, int seed) throws ReflectiveOperationException {
+    if (type == String.class) {
+      return "value-" + seed;
+    } else if (type == int.class || type == Integer.class) {
+      return seed;
+    } else if (type == long.class || type == Long.class) {
+      return (long) seed;
+    } else if (type == double.class || type == Double.class) {
+      return seed + 0.25;
+    } else if (type == float.class || type == Float.class) {
+      return seed + 0.1f;
+    } else if (type == boolean.class || type == Boolean.class) {
+      return true;
+    } else if (type == BigDecimal.class) {
+      return new BigDecimal(seed + ".50");
+    } else if (type == Date.class) {
+      return new Date(1_600_000_000_000L + seed);
+    } else if (type.getName().startsWith("models.")) {
+      return populate(type.getDeclaredConstructor().newInstance());
+    }
+    return null;
+  }
+
+  @Benchmark
+  public Document quotationThroughJackson() throws JsonProcessingException {
+    return Document.parse(ObjectMapperUtil.fetchObjectMapper().writeValueAsString(quotation));
+  }
+
+  @Benchmark
+  public Document quotationThroughCodec() {
+    return ModelCodecs.toDocument(quotation);
+  }
+
+  @Benchmark
+  public Document customerThroughJackson() throws JsonProcessingException {
+    return Document.parse(ObjectMapperUtil.fetchObjectMapper().writeValueAsString(customer));
+  }
+
+  @Benchmark
+  public Document customerThroughCodec() {
+    return ModelCodecs.toDocument(customer);
+  }
+
+  @Benchmark
+  public Document notificationThroughGson() {
+    return Document.parse(new Gson().toJson(notification));
+  }
+
+  @Benchmark
+  public Document notificationThroughCodec() {
+    return ModelCodecs.toDocument(notification);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(ModelDocumentBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
@@ -0,0 +1,144 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import primes.PrimeSieve;
+import primes.RowColumnPagePrinter;
+
+/**
+ * Compares the original PrintPrimes trial division and %10d pagination with
+ * PrimeSieve and RowColumnPagePrinter. Run main() to get gc.alloc.rate
+ * alongside the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrintPrimesBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  public int M;
+
+  @Param({"50"})
+  public int RR;
+
+  @Param({"4"})
+  public int CC;
+
+  private PrimeSieve sieve;
+  private int[] primes;
+  private PrintStream console;
+  private RowColumnPagePrinter printer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    sieve = new PrimeSieve();
+    primes = sieve.firstPrimes(M);
+    console = new PrintStream(OutputStream.nullOutputStream(), true);
+    printer = new RowColumnPagePrinter(RR, CC, 10, "The First " + M + " Prime Numbers",
+        Channels.newChannel(OutputStream.nullOutputStream()));
+  }
+
+  @Benchmark
+  public int[] generateByTrialDivision() {
+    return trialDivision(M);
+  }
+
+  @Benchmark
+  public int[] generateBySieve() {
+    return sieve.firstPrimes(M);
+  }
+
+  @Benchmark
+  public void paginateWithFormat() {
+    formatPages(primes, M, RR, CC, console);
+  }
+
+  @Benchmark
+  public void paginateWithPagePrinter() throws IOException {
+    printer.print(primes);
+    printer.flush();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(PrintPrimesBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+
+  /** The original MULT[] loop; MULT is sized to M so large M cannot overrun it. */
+  static int[] trialDivision(int M) {
+    int P[] = new int[M + 1];
+    int MULT[] = new int[M + 1];
+    int J = 1;
+    int K = 1;
+    int ORD = 2;
+    int SQUARE = 9;
+    int N;
+    boolean JPRIME;
+    P[1] = 2;
+
+    while (K < M) {
+      do {
+        J = J + 2;
+        if (J == SQUARE) {
+          ORD = ORD + 1;
+          SQUARE = P[ORD] * P[ORD];
+          MULT[ORD - 1] = J;
+        }
+        N = 2;
+        JPRIME = true;
+        while (N < ORD && JPRIME) {
+          while (MULT[N] < J)
+            MULT[N] = MULT[N] + P[N] + P[N];
+          if (MULT[N] == J)
+            JPRIME = false;
+          N = N + 1;
+        }
+      } while (!JPRIME);
+      K = K + 1;
+      P[K] = J;
+    }
+    return P;
+  }
+
+  /** The original pagination loop, reading the 0-based table PrimeSieve returns. */
+  static void formatPages(int[] P, int M, int RR, int CC, PrintStream out) {
+    int PAGENUMBER = 1;
+    int PAGEOFFSET = 1;
+    while (PAGEOFFSET <= M) {
+      out.println("The First " + M + " Prime Numbers --- Page " + PAGENUMBER);
+      out.println("");
+      for (int ROWOFFSET = PAGEOFFSET; ROWOFFSET < PAGEOFFSET + RR; ROWOFFSET++) {
+        for (int C = 0; C < CC; C++)
+          if (ROWOFFSET + C * RR <= M)
+            out.format("%10d", P[ROWOFFSET + C * RR - 1]);
+        out.println("");
+      }
+      out.println("\f");
+      PAGENUMBER = PAGENUMBER + 1;
+      PAGEOFFSET = PAGEOFFSET + RR * CC;
+    }
+  }
+}
@@ -1,37 +1,51 @@
 public class Bill {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Bill.class);
+    private static final BillRowEncoder BILL_ROW_ENCODER = new BillRowEncoder();
+    private static final int BILL_STREAM_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_LENGTH = 1000;
+    private static final String GENERATED_TIME = "generatedTime";
+    private static final String[] SORTABLE_COLUMNS = {"id", "status", "vendorName", "product", GENERATED_TIME,
+            "interestTime", "totalAmount", "totalAmountPaid", "totalAmountRemaining", "vId", "contractId", "cId",
+            "contractId"};
+    private static final Document BILL_ROW_PROJECTION = new Document("_id", 0).append("id", 1).append("status", 1)
+            .append("vendorName", 1).append("product", 1).append(GENERATED_TIME, 1).append("interestTime", 1)
+            .append("totalAmount", 1).append("totalAmountPaid", 1).append("totalAmountRemaining", 1)
+            .append("vId", 1).append("contractId", 1).append("cId", 1);
+
     public Result billTable(Http.Request request) throws NoSuchAlgorithmException {
-        ArrayList<ArrayList> list = new ArrayList<>();
         try {
-            String collectionName = Global.decrypt(request.session().getOptional("col").orElse(null));
-            List<Document> query = billsDBDao.clientBillQueryGenerator(formFactory.form().bindFromRequest(request));
+            String collectionName = SessionCrypto.decrypt(request.session().getOptional("col").orElse(null));
+            DynamicForm form = formFactory.form().bindFromRequest(request);
+            List<Document> query = billsDBDao.clientBillQueryGenerator(form);
             if (query != null) {
-                AggregateIterable<Document> iterable = customerRepoDb.getCollection(collectionName).aggregate(query);
-                for (Document document : iterable) {
-                    document.putIfAbsent("product", "");
-                    document.putIfAbsent("pId", "");
-                    ArrayList<String> data = new ArrayList<>();
-                    data.add(document.getString("id"));
-                    data.add(PaymentStatus.fromId(document.getInteger("status")));
-                    data.add(document.getString("vendorName").toUpperCase());
-                    data.add(document.getString("product").toUpperCase());
-                    data.add(new DateTime(document.getDate("generatedTime")).toString("dd-MM-YYYY"));
-                    data.add(new DateTime(document.getDate("interestTime")).toString("dd-MM-YYYY"));
-                    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmount")) + "");
-                    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmountPaid")) + "");
-                    data.add(Operations.roundingToTwoDecimals(document.getDouble("totalAmountRemaining")) + "");
-                    data.add(document.getString("vId").toUpperCase());
-                    data.add(document.getString("contractId"));
-                    data.add(document.getString("cId").toLowerCase());
-                    if ((document.getString("contractId")).contains("FTL")) {
-                        data.add("FTL");
-                    } else {
-                        data.add("LTL");
-                    }
-
-                    list.add(data);
+                ArrayList<ArrayList> list = retrieveBillRows(customerRepoDb.getCollection(collectionName).aggregate(query));
+                DataTableModel model = new DataTableModel();
+                model.setData(list);
+                return ok(Json.toJson(model)).withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            }
 
-                }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return badRequest().withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+    }
+
+    public Result billTablePage(Http.Request request) {
+        try {
+            String collectionName = SessionCrypto.decrypt(request.session().getOptional("col").orElse(null));
+            DynamicForm form = formFactory.form().bindFromRequest(request);
+            List<Document> query = billsDBDao.clientBillQueryGenerator(form);
+            if (query != null) {
+                MongoCollection<Document> bills = customerRepoDb.getCollection(collectionName);
+                long recordsFiltered = retrieveCachedBillCount(bills, collectionName, query);
+                ArrayList<ArrayList> list = billTableCache.get(collectionName, "page",
+                        BillTableCache.normalize(form.rawData()),
+                        () -> retrieveBillRows(bills.aggregate(retrieveBillPagePipeline(query, form))));
                 DataTableModel model = new DataTableModel();
+                model.setDraw(NumberUtils.toInt(form.get("draw"), 0));
+                model.setRecordsTotal(recordsFiltered);
+                model.setRecordsFiltered(recordsFiltered);
                 model.setData(list);
                 return ok(Json.toJson(model)).withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
             }
@@ -42,4 +56,117 @@ public class Bill {
 
         return badRequest().withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
     }
+
+    private List<Document> retrieveBillPagePipeline(List<Document> query, DynamicForm form) {
+        List<Document> pipeline = new ArrayList<>(query);
+        String sortField = retrieveSortField(NumberUtils.toInt(form.get("order[0][column]"), -1));
+        int direction = "asc".equalsIgnoreCase(form.get("order[0][dir]")) ? 1 : -1;
+        String lastGeneratedTime = form.get("lastGeneratedTime");
+        String lastId = form.get("lastId");
+        boolean isKeysetPage = GENERATED_TIME.equals(sortField) && StringUtils.isNotBlank(lastGeneratedTime)
+                && StringUtils.isNotBlank(lastId);
+        if (isKeysetPage) {
+            pipeline.add(new Document("$match", retrieveKeysetFilter(new Date(Long.parseLong(lastGeneratedTime)),
+                    lastId, direction)));
+        }
+        pipeline.add(new Document("$sort", new Document(sortField, direction).append("id", direction)));
+        int start = NumberUtils.toInt(form.get("start"), 0);
+        if (!isKeysetPage && start > 0) {
+            pipeline.add(new Document("$skip", start));
+        }
+        int length = NumberUtils.toInt(form.get("length"), 10);
+        pipeline.add(new Document("$limit", length < 0 ? MAX_PAGE_LENGTH : Math.min(length, MAX_PAGE_LENGTH)));
+        pipeline.add(new Document("$project", BILL_ROW_PROJECTION));
+        return pipeline;
+    }
+
+    private String retrieveSortField(int column) {
+        return column >= 0 && column < SORTABLE_COLUMNS.length ? SORTABLE_COLUMNS[column] : GENERATED_TIME;
+    }
+
+    private Document retrieveKeysetFilter(Date lastGeneratedTime, String lastId, int direction) {
+        String operator = direction < 0 ? "$lt" : "$gt";
+        return new Document("$or", Arrays.asList(
+                new Document(GENERATED_TIME, new Document(operator, lastGeneratedTime)),
+                new Document(GENERATED_TIME, lastGeneratedTime).append("id", new Document(operator, lastId))));
+    }
+
+    private long retrieveCachedBillCount(MongoCollection<Document> bills, String collectionName, List<Document> query) {
+        return billTableCache.get(collectionName, "count", query.toString(), () -> {
+            List<Document> countPipeline = new ArrayList<>(query);
+            countPipeline.add(new Document("$count", "count"));
+            Document count = bills.aggregate(countPipeline).first();
+            return count == null ? 0L : ((Number) count.get("count")).longValue();
+        });
+    }
+
+    public Result billTableStream(Http.Request request) {
+        try {
+            String collectionName = SessionCrypto.decrypt(request.session().getOptional("col").orElse(null));
+            List<Document> query = billsDBDao.clientBillQueryGenerator(formFactory.form().bindFromRequest(request));
+            if (query != null) {
+                AggregateIterable<Document> iterable = customerRepoDb.getCollection(collectionName).aggregate(query)
+                        .batchSize(BILL_STREAM_BATCH_SIZE);
+                CompletableFuture<Void> written = new CompletableFuture<>();
+                Source<ByteString, ?> body = StreamConverters.asOutputStream()
+                        .mapMaterializedValue(outputStream -> {
+                            CompletableFuture.runAsync(() -> writeBillTable(iterable, outputStream), databaseExecutionContext)
+                                    .whenComplete((done, failure) -> {
+                                        if (failure == null) {
+                                            written.complete(null);
+                                        } else {
+                                            written.completeExceptionally(failure);
+                                        }
+                                    });
+                            return NotUsed.getInstance();
+                        })
+                        // fails the chunked response, instead of ending it cleanly, when the writer failed
+                        .concat(Source.completionStageSource(written.thenApply(done -> Source.<ByteString>empty())));
+                return ok().chunked(body).as(Http.MimeTypes.JSON).withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return badRequest().withHeader(ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+    }
+
+    private void writeBillTable(AggregateIterable<Document> iterable, OutputStream outputStream) {
+        try (JsonGenerator generator = Json.mapper().getFactory().createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+             MongoCursor<Document> cursor = iterable.iterator()) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("data");
+            String[] row = new String[BillRowEncoder.COLUMNS];
+            while (cursor.hasNext()) {
+                BILL_ROW_ENCODER.encode(cursor.next(), row);
+                generator.writeStartArray();
+                for (String value : row) {
+                    generator.writeString(value);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException e) {
+            LOGGER.error("Bill table stream failed", e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            LOGGER.error("Bill table stream failed", e);
+            throw e;
+        }
+    }
+
+    private ArrayList<ArrayList> retrieveBillRows(Iterable<Document> documents) {
+        ArrayList<ArrayList> list = new ArrayList<>();
+        for (Document document : documents) {
+            list.add(toBillRow(document));
+        }
+        return list;
+    }
+
+    private ArrayList<String> toBillRow(Document document) {
+        return BILL_ROW_ENCODER.encode(document);
+    }
 }
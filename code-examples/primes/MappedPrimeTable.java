@@ -0,0 +1,170 @@
+package primes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Prime table persisted as a memory-mapped file of delta-encoded gaps.
+ *
+ * The file is a 16 byte header followed by fixed-size blocks. Every block
+ * starts with the absolute value of its first prime, which serves as the
+ * sparse checkpoint index, followed by one byte per remaining prime holding
+ * half the gap to its predecessor (0 stands for the single odd gap 2 -> 3).
+ * Prime gaps below 2^31 never exceed 292, so a half gap always fits a byte.
+ */
+public class MappedPrimeTable implements Closeable {
+  private static final int MAGIC = 0x50524d54;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 16;
+  private static final int COUNT_OFFSET = 8;
+  private static final int PRIMES_PER_BLOCK = 256;
+  private static final int BLOCK_SIZE = Integer.BYTES + PRIMES_PER_BLOCK - 1;
+  private static final int EXTENSION_WINDOW = 1 << 24;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final PrimeSieve sieve;
+  private MappedByteBuffer table;
+  private int size;
+
+  private MappedPrimeTable(Path path, FileChannel channel, PrimeSieve sieve) {
+    this.path = path;
+    this.channel = channel;
+    this.sieve = sieve;
+  }
+
+  public static MappedPrimeTable open(Path path) throws IOException {
+    return open(path, new PrimeSieve());
+  }
+
+  public static MappedPrimeTable open(Path path, PrimeSieve sieve) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedPrimeTable primeTable = new MappedPrimeTable(path, channel, sieve);
+    try {
+      primeTable.load();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    return primeTable;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int get(int index) {
+    checkIndex(index, 1);
+    int blockOffset = blockOffset(index);
+    int prime = table.getInt(blockOffset);
+    int slot = index % PRIMES_PER_BLOCK;
+    for (int i = 1; i <= slot; i++)
+      prime += gap(blockOffset + Integer.BYTES + i - 1);
+    return prime;
+  }
+
+  public void copyTo(int fromIndex, int[] destination, int offset, int length) {
+    if (length == 0)
+      return;
+    checkIndex(fromIndex, length);
+    int prime = get(fromIndex);
+    destination[offset] = prime;
+    for (int index = fromIndex + 1, k = 1; k < length; index++, k++) {
+      int slot = index % PRIMES_PER_BLOCK;
+      if (slot == 0)
+        prime = table.getInt(blockOffset(index));
+      else
+        prime += gap(blockOffset(index) + Integer.BYTES + slot - 1);
+      destination[offset + k] = prime;
+    }
+  }
+
+  public void ensureSize(int count) throws IOException {
+    if (count <= size)
+      return;
+    remap(fileLength(count));
+    int bound = PrimeSieve.upperBoundOfNthPrime(count);
+    int previous = size == 0 ? 0 : get(size - 1);
+    int lo = previous + 1;
+    while (size < count) {
+      int hi = (int) Math.min(bound, (long) lo + EXTENSION_WINDOW);
+      if (hi <= lo)
+        throw new IllegalArgumentException("The " + count + "th prime does not fit in an int");
+      for (int prime : sieve.primesInRange(lo, hi)) {
+        if (size == count)
+          break;
+        append(previous, prime);
+        previous = prime;
+      }
+      lo = hi;
+    }
+    table.force();
+    table.putInt(COUNT_OFFSET, size);
+    table.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void load() throws IOException {
+    if (channel.size() == 0) {
+      remap(HEADER_SIZE);
+      table.putInt(0, MAGIC);
+      table.putInt(4, VERSION);
+      table.putInt(COUNT_OFFSET, 0);
+      table.force();
+      return;
+    }
+    if (channel.size() < HEADER_SIZE)
+      throw new IOException("Not a prime table: " + path);
+    remap(channel.size());
+    if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION)
+      throw new IOException("Not a prime table: " + path);
+    size = table.getInt(COUNT_OFFSET);
+    if (channel.size() < fileLength(size))
+      throw new IOException("Truncated prime table: " + path);
+  }
+
+  private void remap(long length) throws IOException {
+    if (table != null && table.capacity() >= length)
+      return;
+    table = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(length, channel.size()));
+  }
+
+  private void append(int previous, int prime) {
+    int slot = size % PRIMES_PER_BLOCK;
+    int blockOffset = blockOffset(size);
+    if (slot == 0)
+      table.putInt(blockOffset, prime);
+    else
+      table.put(blockOffset + Integer.BYTES + slot - 1, (byte) ((prime - previous) / 2));
+    size++;
+  }
+
+  private int gap(int position) {
+    int halfGap = table.get(position) & 0xff;
+    return halfGap == 0 ? 1 : 2 * halfGap;
+  }
+
+  private void checkIndex(int index, int length) {
+    if (index < 0 || length < 0 || index > size - length)
+      throw new IndexOutOfBoundsException("Range [" + index + ", " + index + " + " + length
+          + ") out of bounds for table of " + size + " primes");
+  }
+
+  private static int blockOffset(int index) {
+    return HEADER_SIZE + (index / PRIMES_PER_BLOCK) * BLOCK_SIZE;
+  }
+
+  private static long fileLength(int count) {
+    long blocks = ((long) count + PRIMES_PER_BLOCK - 1) / PRIMES_PER_BLOCK;
+    return HEADER_SIZE + blocks * BLOCK_SIZE;
+  }
+}
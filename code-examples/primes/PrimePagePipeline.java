@@ -0,0 +1,91 @@
+package primes;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Generates primes on a background thread in page-sized blocks and prints
+ * each page as soon as its block is complete. Blocks travel through a bounded
+ * queue and are recycled, so memory stays flat however many pages are printed.
+ */
+public class PrimePagePipeline {
+  private static final int SIEVE_WINDOW = 1 << 20;
+  private static final Block END = new Block(0);
+
+  private final PrimeSieve sieve;
+  private final int pageSize;
+  private final BlockingQueue<Block> ready;
+  private final BlockingQueue<Block> free;
+  private volatile Throwable generatorFailure;
+
+  public PrimePagePipeline(PrimeSieve sieve, int pageSize, int queueCapacity) {
+    this.sieve = sieve;
+    this.pageSize = pageSize;
+    this.ready = new ArrayBlockingQueue<>(queueCapacity + 1);
+    this.free = new ArrayBlockingQueue<>(queueCapacity + 1);
+    for (int i = 0; i <= queueCapacity; i++)
+      free.add(new Block(pageSize));
+  }
+
+  public void print(int count, RowColumnPagePrinter printer) throws IOException, InterruptedException {
+    Thread generator = new Thread(() -> generate(count), "prime-page-generator");
+    generator.setDaemon(true);
+    generator.start();
+    try {
+      int pageNumber = 1;
+      for (Block block = ready.take(); block != END; block = ready.take()) {
+        printer.printPage(pageNumber++, block.primes, 0, block.length);
+        block.length = 0;
+        free.put(block);
+        if (ready.isEmpty())
+          printer.flush();
+      }
+      printer.flush();
+    } finally {
+      generator.interrupt();
+    }
+    if (generatorFailure != null)
+      throw new IllegalStateException("Prime generation failed", generatorFailure);
+  }
+
+  private void generate(int count) {
+    try {
+      Block block = free.take();
+      int generated = 0;
+      for (long lo = 0; generated < count; lo += SIEVE_WINDOW) {
+        if (lo >= Integer.MAX_VALUE)
+          throw new IllegalArgumentException("The " + count + "th prime does not fit in an int");
+        int hi = (int) Math.min(Integer.MAX_VALUE, lo + SIEVE_WINDOW);
+        for (int prime : sieve.primesInRange((int) lo, hi)) {
+          block.primes[block.length++] = prime;
+          if (++generated == count)
+            break;
+          if (block.length == pageSize) {
+            ready.put(block);
+            block = free.take();
+          }
+        }
+      }
+      if (block.length > 0)
+        ready.put(block);
+    } catch (InterruptedException e) {
+      return;
+    } catch (RuntimeException | Error e) {
+      generatorFailure = e;
+    }
+    try {
+      ready.put(END);
+    } catch (InterruptedException ignored) {
+    }
+  }
+
+  private static class Block {
+    final int[] primes;
+    int length;
+
+    Block(int capacity) {
+      this.primes = new int[capacity];
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package primes;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Segmented Sieve of Eratosthenes over an odd-only bitset. Segments are
+ * sieved independently on a ForkJoinPool and stitched back together in order.
+ */
+public class PrimeSieve {
+  private static final int SEGMENT_WORDS = 1 << 12;
+  private static final int SEGMENT_ODDS = SEGMENT_WORDS * Long.SIZE;
+  private static final long SEGMENT_SPAN = 2L * SEGMENT_ODDS;
+
+  private final ForkJoinPool pool;
+
+  public PrimeSieve() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public PrimeSieve(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  public int[] firstPrimes(int count) {
+    if (count < 0)
+      throw new IllegalArgumentException("count must not be negative: " + count);
+    if (count == 0)
+      return new int[0];
+    int[] primes = primesInRange(0, upperBoundOfNthPrime(count));
+    if (primes.length < count)
+      throw new IllegalArgumentException("The " + count + "th prime does not fit in an int");
+    return primes.length == count ? primes : Arrays.copyOf(primes, count);
+  }
+
+  public int[] primesInRange(int lo, int hi) {
+    if (lo < 0 || hi < lo)
+      throw new IllegalArgumentException("Invalid range [" + lo + ", " + hi + ")");
+    if (hi - lo == 0)
+      return new int[0];
+    int[] basePrimes = oddPrimesUpTo((int) Math.sqrt(hi - 1));
+    int segmentCount = (int) ((hi - lo + SEGMENT_SPAN - 1) / SEGMENT_SPAN);
+    int[][] segments = new int[segmentCount][];
+    pool.invoke(new SegmentTask(lo, hi, basePrimes, segments, 0, segmentCount));
+    return concatenate(segments, lo <= 2 && 2 < hi);
+  }
+
+  static int upperBoundOfNthPrime(int n) {
+    if (n < 6)
+      return 12;
+    double log = Math.log(n);
+    double bound = n * (log + Math.log(log)) + 1;
+    return bound >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) bound;
+  }
+
+  private static int[] oddPrimesUpTo(int limit) {
+    if (limit < 3)
+      return new int[0];
+    boolean[] composite = new boolean[limit / 2 + 1];
+    int count = 0;
+    int[] primes = new int[limit / 2];
+    for (int i = 1; 2 * i + 1 <= limit; i++) {
+      if (composite[i])
+        continue;
+      int p = 2 * i + 1;
+      primes[count++] = p;
+      for (long j = ((long) p * p) / 2; j < composite.length; j += p)
+        composite[(int) j] = true;
+    }
+    return Arrays.copyOf(primes, count);
+  }
+
+  private static int[] sieveSegment(long segmentLo, long segmentHi, int[] basePrimes) {
+    long start = Math.max(segmentLo | 1, 3);
+    if (start >= segmentHi)
+      return new int[0];
+    int odds = (int) ((segmentHi - start + 1) / 2);
+    long[] composite = new long[(odds + Long.SIZE - 1) / Long.SIZE];
+    for (int p : basePrimes) {
+      long square = (long) p * p;
+      if (square >= segmentHi)
+        break;
+      long multiple = Math.max(square, (start + p - 1) / p * p);
+      if ((multiple & 1) == 0)
+        multiple += p;
+      for (long j = (multiple - start) / 2; j < odds; j += p)
+        composite[(int) (j >>> 6)] |= 1L << j;
+    }
+    int tailBits = odds % Long.SIZE;
+    if (tailBits != 0)
+      composite[composite.length - 1] |= -1L << tailBits;
+
+    int count = 0;
+    for (long word : composite)
+      count += Long.bitCount(~word);
+    int[] primes = new int[count];
+    int k = 0;
+    for (int w = 0; w < composite.length; w++) {
+      long candidates = ~composite[w];
+      while (candidates != 0) {
+        int bit = Long.numberOfTrailingZeros(candidates);
+        primes[k++] = (int) (start + 2L * (((long) w << 6) + bit));
+        candidates &= candidates - 1;
+      }
+    }
+    return primes;
+  }
+
+  private static int[] concatenate(int[][] segments, boolean includeTwo) {
+    int total = includeTwo ? 1 : 0;
+    for (int[] segment : segments)
+      total += segment.length;
+    int[] primes = new int[total];
+    int offset = 0;
+    if (includeTwo)
+      primes[offset++] = 2;
+    for (int[] segment : segments) {
+      System.arraycopy(segment, 0, primes, offset, segment.length);
+      offset += segment.length;
+    }
+    return primes;
+  }
+
+  private static class SegmentTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int lo;
+    private final int hi;
+    private final int[] basePrimes;
+    private final int[][] segments;
+    private final int from;
+    private final int to;
+
+    SegmentTask(int lo, int hi, int[] basePrimes, int[][] segments, int from, int to) {
+      this.lo = lo;
+      this.hi = hi;
+      this.basePrimes = basePrimes;
+      this.segments = segments;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from == 1) {
+        long segmentLo = lo + from * SEGMENT_SPAN;
+        long segmentHi = Math.min(hi, segmentLo + SEGMENT_SPAN);
+        segments[from] = sieveSegment(segmentLo, segmentHi, basePrimes);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(new SegmentTask(lo, hi, basePrimes, segments, from, mid),
+                new SegmentTask(lo, hi, basePrimes, segments, mid, to));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package primes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders column-major pages of ints into a reusable byte buffer and hands
+ * whole pages to a channel, so no per-cell formatting or flushing happens.
+ */
+public class RowColumnPagePrinter {
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+  private static final int MAX_INT_WIDTH = 11;
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] PAGE_NUMBER_PREFIX = " --- Page ".getBytes(StandardCharsets.US_ASCII);
+
+  private final int rowsPerPage;
+  private final int columnsPerPage;
+  private final int columnWidth;
+  private final byte[] pageHeader;
+  private final WritableByteChannel channel;
+  private final byte[] buffer;
+  private final ByteBuffer bufferView;
+  private int position;
+
+  public RowColumnPagePrinter(int rowsPerPage, int columnsPerPage, int columnWidth,
+                              String pageHeader, WritableByteChannel channel) {
+    this.rowsPerPage = rowsPerPage;
+    this.columnsPerPage = columnsPerPage;
+    this.columnWidth = columnWidth;
+    this.pageHeader = pageHeader.getBytes(Charset.defaultCharset());
+    this.channel = channel;
+    this.buffer = new byte[Math.max(DEFAULT_BUFFER_SIZE, maxPageSize())];
+    this.bufferView = ByteBuffer.wrap(buffer);
+  }
+
+  public void print(int[] data) throws IOException {
+    int pageSize = rowsPerPage * columnsPerPage;
+    int pageNumber = 1;
+    for (int pageOffset = 0; pageOffset < data.length; pageOffset += pageSize)
+      printPage(pageNumber++, data, pageOffset, Math.min(pageSize, data.length - pageOffset));
+  }
+
+  public void printPage(int pageNumber, int[] data, int offset, int length) throws IOException {
+    if (buffer.length - position < maxPageSize())
+      flush();
+    writeHeader(pageNumber);
+    for (int row = 0; row < rowsPerPage; row++) {
+      for (int column = 0; column < columnsPerPage; column++) {
+        int index = row + column * rowsPerPage;
+        if (index < length)
+          writeInt(data[offset + index]);
+      }
+      writeBytes(LINE_SEPARATOR);
+    }
+    buffer[position++] = '\f';
+    writeBytes(LINE_SEPARATOR);
+  }
+
+  public void flush() throws IOException {
+    bufferView.clear().limit(position);
+    while (bufferView.hasRemaining())
+      channel.write(bufferView);
+    position = 0;
+  }
+
+  private int maxPageSize() {
+    int cellWidth = Math.max(columnWidth, MAX_INT_WIDTH);
+    int headerSize = pageHeader.length + PAGE_NUMBER_PREFIX.length + MAX_INT_WIDTH + 2 * LINE_SEPARATOR.length;
+    int rowSize = columnsPerPage * cellWidth + LINE_SEPARATOR.length;
+    return headerSize + rowsPerPage * rowSize + 1 + LINE_SEPARATOR.length;
+  }
+
+  private void writeHeader(int pageNumber) {
+    writeBytes(pageHeader);
+    writeBytes(PAGE_NUMBER_PREFIX);
+    writeDigits(pageNumber, 0);
+    writeBytes(LINE_SEPARATOR);
+    writeBytes(LINE_SEPARATOR);
+  }
+
+  private void writeInt(int value) {
+    writeDigits(value, columnWidth);
+  }
+
+  private void writeDigits(int value, int width) {
+    long magnitude = Math.abs((long) value);
+    int length = value < 0 ? 2 : 1;
+    for (long rest = magnitude / 10; rest != 0; rest /= 10)
+      length++;
+    for (int pad = width - length; pad > 0; pad--)
+      buffer[position++] = ' ';
+    int end = position + length;
+    int cursor = end;
+    do {
+      buffer[--cursor] = (byte) ('0' + magnitude % 10);
+      magnitude /= 10;
+    } while (magnitude != 0);
+    if (value < 0)
+      buffer[--cursor] = '-';
+    position = end;
+  }
+
+  private void writeBytes(byte[] bytes) {
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+}
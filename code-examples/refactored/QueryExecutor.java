@@ -0,0 +1,145 @@
+package refactored;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs queries through forward-only, read-only statements with the given
+ * fetch size, so rows are pulled from the server as the cursor advances.
+ * Drivers differ in when they honor it: MySQL Connector/J streams row by
+ * row only with Integer.MIN_VALUE, which is accepted here, and PostgreSQL
+ * only fetches in batches when the connection has autocommit off.
+ */
+public class QueryExecutor {
+   private final int fetchSize;
+
+   public QueryExecutor(int fetchSize) {
+      if (fetchSize <= 0 && fetchSize != Integer.MIN_VALUE)
+         throw new IllegalArgumentException("fetchSize must be positive or Integer.MIN_VALUE: " + fetchSize);
+      this.fetchSize = fetchSize;
+   }
+
+   public Cursor open(Connection connection, Sql sql) {
+      String query = sql.generate();
+      PreparedStatement statement = null;
+      try {
+         statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+         statement.setFetchSize(fetchSize);
+         Object[] parameters = sql.parameters();
+         for (int i = 0; i < parameters.length; i++)
+            statement.setObject(i + 1, parameters[i]);
+         return new Cursor(statement, statement.executeQuery());
+      } catch (SQLException e) {
+         closeQuietly(statement);
+         throw new SqlExecutionException(query, e);
+      }
+   }
+
+   public Stream<Row> stream(Connection connection, Sql sql) {
+      Cursor cursor = open(connection, sql);
+      return StreamSupport.stream(
+         Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+         .onClose(cursor::close);
+   }
+
+   private static void closeQuietly(Statement statement) {
+      if (statement == null) return;
+      try {
+         statement.close();
+      } catch (SQLException ignored) {
+      }
+   }
+
+   /**
+    * Forward-only cursor over a result set. The same Row is handed out for
+    * every position, so callers must copy what they keep before advancing.
+    * Resources are released when the cursor is exhausted or closed.
+    */
+   public static class Cursor implements Iterator<Row>, AutoCloseable {
+      private final Statement statement;
+      private final ResultSet resultSet;
+      private final Row row;
+      private boolean advanced;
+      private boolean hasRow;
+      private boolean closed;
+
+      Cursor(Statement statement, ResultSet resultSet) {
+         this.statement = statement;
+         this.resultSet = resultSet;
+         this.row = new Row(resultSet);
+      }
+
+      @Override public boolean hasNext() {
+         if (!advanced && !closed) {
+            try {
+               hasRow = resultSet.next();
+            } catch (SQLException e) {
+               close();
+               throw new SqlExecutionException("Could not advance cursor", e);
+            }
+            advanced = true;
+            if (!hasRow) close();
+         }
+         return hasRow && !closed;
+      }
+
+      @Override public Row next() {
+         if (!hasNext()) throw new NoSuchElementException();
+         advanced = false;
+         return row;
+      }
+
+      @Override public void close() {
+         if (closed) return;
+         closed = true;
+         try {
+            resultSet.close();
+         } catch (SQLException ignored) {
+         }
+         closeQuietly(statement);
+      }
+   }
+
+   public static class Row {
+      private final ResultSet resultSet;
+
+      Row(ResultSet resultSet) { this.resultSet = resultSet; }
+
+      public Object getObject(int column) {
+         try { return resultSet.getObject(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public Object getObject(String column) {
+         try { return resultSet.getObject(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public String getString(int column) {
+         try { return resultSet.getString(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public String getString(String column) {
+         try { return resultSet.getString(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public long getLong(int column) {
+         try { return resultSet.getLong(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public long getLong(String column) {
+         try { return resultSet.getLong(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public double getDouble(int column) {
+         try { return resultSet.getDouble(column); } catch (SQLException e) { throw failure(e); }
+      }
+      public double getDouble(String column) {
+         try { return resultSet.getDouble(column); } catch (SQLException e) { throw failure(e); }
+      }
+      private SqlExecutionException failure(SQLException e) {
+         return new SqlExecutionException("Could not read column", e);
+      }
+   }
+}
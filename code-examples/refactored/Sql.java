@@ -2,58 +2,396 @@ package refactored;
 
 import clean.code.added.to.make.code.build.Column;
 import clean.code.added.to.make.code.build.Criteria;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 
 abstract public class Sql {
-   public Sql(String table, Column[] columns) {};
-   abstract public String generate();
+   static final Object[] NO_PARAMETERS = {};
+   private static final StatementCache statements = new StatementCache(1024);
+   private static final int MAX_POOLED_CAPACITY = 1 << 16;
+   private static final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+   protected final String table;
+   protected final Column[] columns;
+
+   public Sql(String table, Column[] columns) {
+      this.table = table;
+      this.columns = columns;
+   }
+
+   public String generate() {
+      StringBuilder sql = buffers.get();
+      sql.setLength(0);
+      try {
+         generate(sql);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      String statement = sql.toString();
+      if (sql.capacity() > MAX_POOLED_CAPACITY) buffers.remove();
+      return statement;
+   }
+
+   abstract public void generate(Appendable sql) throws IOException;
+
+   public Object[] parameters() { return NO_PARAMETERS; }
+
+   protected String cached(String kind, Supplier<String> generator) {
+      return cached(kind, "", generator);
+   }
+
+   protected String cached(String kind, String qualifier, Supplier<String> generator) {
+      return statements.get(new StatementKey(kind, table, qualifier, columns), generator);
+   }
+
+   static String cached(String kind, String table, Column[] columns, Supplier<String> generator) {
+      return statements.get(new StatementKey(kind, table, "", columns), generator);
+   }
+
+   static void appendLiteral(Appendable sql, Object value) throws IOException {
+      if (value == null) {
+         sql.append("NULL");
+      } else if (value instanceof Number || value instanceof Boolean) {
+         sql.append(value.toString());
+      } else {
+         CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+         sql.append('\'');
+         for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'') sql.append('\'');
+            sql.append(c);
+         }
+         sql.append('\'');
+      }
+   }
 }
 
 class CreateSql extends Sql {
    public CreateSql(String table, Column[] columns) { super(table, columns); }
-   @Override public String generate() { return ""; }
+   @Override public String generate() {
+      return cached("create", () -> "CREATE TABLE " + table + " (" + new ColumnList(columns).generate() + ")");
+   }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
 }
 
 class SelectSql extends Sql {
    public SelectSql(String table, Column[] columns) { super(table, columns); }
-   @Override public String generate() { return ""; }
+   @Override public String generate() { return statement(table, columns); }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+   static String statement(String table, Column[] columns) {
+      return Sql.cached("select", table, columns,
+         () -> "SELECT " + new ColumnList(columns).generate() + " FROM " + table);
+   }
 }
 
 class InsertSql extends Sql {
-   public InsertSql(String table, Column[] columns, Object[] fields) { super(table, columns); }
-   @Override public String generate() { return ""; }
-   private String valuesList(Object[] fields, final Column[] columns) { return ""; }
+   private final Object[] fields;
+
+   public InsertSql(String table, Column[] columns, Object[] fields) {
+      super(table, columns);
+      this.fields = fields;
+   }
+   @Override public void generate(Appendable sql) throws IOException {
+      sql.append(prefix(table, columns));
+      new ValuesList(fields, columns).generate(sql);
+   }
+   static String prefix(String table, Column[] columns) {
+      return Sql.cached("insert", table, columns,
+         () -> "INSERT INTO " + table + " (" + new ColumnList(columns).generate() + ") VALUES ");
+   }
+}
+
+class BatchInsertSql extends Sql {
+   private final Iterable<Object[]> rows;
+   private final int maxRows;
+   private final int maxBytes;
+
+   public BatchInsertSql(String table, Column[] columns, Iterable<Object[]> rows, int maxRows, int maxBytes) {
+      super(table, columns);
+      if (maxRows <= 0) throw new IllegalArgumentException("maxRows must be positive: " + maxRows);
+      if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+      this.rows = rows;
+      this.maxRows = maxRows;
+      this.maxBytes = maxBytes;
+   }
+   @Override public void generate(Appendable sql) throws IOException {
+      Iterator<String> statements = statements();
+      while (statements.hasNext()) {
+         sql.append(statements.next());
+         if (statements.hasNext()) sql.append(";\n");
+      }
+   }
+   public Iterator<String> statements() {
+      return new ChunkIterator(rows.iterator());
+   }
+
+   private class ChunkIterator implements Iterator<String> {
+      private final Iterator<Object[]> source;
+      private final String prefix = InsertSql.prefix(table, columns);
+      private final int prefixBytes = utf8Length(prefix);
+      private String pending;
+
+      ChunkIterator(Iterator<Object[]> source) { this.source = source; }
+
+      @Override public boolean hasNext() { return pending != null || source.hasNext(); }
+
+      @Override public String next() {
+         if (!hasNext()) throw new NoSuchElementException();
+         StringBuilder statement = new StringBuilder(prefix);
+         int bytes = prefixBytes;
+         int rowCount = 0;
+         while (rowCount < maxRows && (pending != null || source.hasNext())) {
+            String row = pending != null ? pending : new ValuesList(source.next(), columns).generate();
+            int rowBytes = utf8Length(row) + (rowCount == 0 ? 0 : 1);
+            if (rowCount > 0 && bytes + rowBytes > maxBytes) {
+               pending = row;
+               break;
+            }
+            if (rowCount > 0) statement.append(',');
+            statement.append(row);
+            bytes += rowBytes;
+            rowCount++;
+            pending = null;
+         }
+         return statement.toString();
+      }
+   }
+
+   private static int utf8Length(CharSequence text) {
+      int bytes = 0;
+      for (int i = 0; i < text.length(); i++) {
+         char c = text.charAt(i);
+         if (c < 0x80) bytes += 1;
+         else if (c < 0x800) bytes += 2;
+         else if (Character.isHighSurrogate(c)) { bytes += 4; i++; }
+         else bytes += 3;
+      }
+      return bytes;
+   }
 }
 
 class SelectWithCriteriaSql extends Sql {
+   private final Criteria criteria;
+
    public SelectWithCriteriaSql(
-      String table, Column[] columns, Criteria criteria) { super(table, columns); }
-   @Override public String generate() { return ""; }
+      String table, Column[] columns, Criteria criteria) {
+      super(table, columns);
+      this.criteria = criteria;
+   }
+   @Override public void generate(Appendable sql) throws IOException {
+      sql.append(SelectSql.statement(table, columns)).append(' ');
+      new Where(criteria.toString()).generate(sql);
+   }
 }
 
 class SelectWithMatchSql extends Sql {
+   private final String columnName;
+   private final Where where;
+
    public SelectWithMatchSql(
-      String table, Column[] columns, Column column, String pattern) { super(table, columns); }
-   @Override public String generate() { return ""; }
+      String table, Column[] columns, Column column, String pattern) {
+      super(table, columns);
+      this.columnName = column.getName();
+      this.where = Where.like(columnName, pattern);
+   }
+   @Override public String generate() {
+      return cached("selectWithMatch", columnName,
+         () -> SelectSql.statement(table, columns) + " " + where.generate());
+   }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+   @Override public Object[] parameters() { return where.parameters(); }
 }
 
 class FindByKeySql extends Sql {
+   private final String keyColumn;
+   private final Where where;
+
    public FindByKeySql(
-      String table, Column[] columns, String keyColumn, String keyValue) { super(table, columns); }
-   @Override public String generate() { return ""; }
+      String table, Column[] columns, String keyColumn, String keyValue) {
+      super(table, columns);
+      this.keyColumn = keyColumn;
+      this.where = Where.equalTo(keyColumn, keyValue);
+   }
+   @Override public String generate() {
+      return cached("findByKey", keyColumn,
+         () -> SelectSql.statement(table, columns) + " " + where.generate());
+   }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+   @Override public Object[] parameters() { return where.parameters(); }
 }
 
 class PreparedInsertSql extends Sql {
    public PreparedInsertSql(String table, Column[] columns) { super(table, columns); }
-   @Override public String generate() {return ""; }
-   private String placeholderList(Column[] columns) { return ""; }
+   @Override public String generate() {
+      return cached("preparedInsert", () -> "INSERT INTO " + table
+         + " (" + new ColumnList(columns).generate() + ") VALUES (" + placeholderList(columns) + ")");
+   }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+   private String placeholderList(Column[] columns) {
+      return Sql.cached("placeholders", "", columns, () -> {
+         StringBuilder placeholders = new StringBuilder();
+         for (int i = 0; i < columns.length; i++)
+            placeholders.append(i == 0 ? "?" : ", ?");
+         return placeholders.toString();
+      });
+   }
+}
+
+class PreparedBatchInsertSql extends Sql {
+   private final int batchSize;
+
+   public PreparedBatchInsertSql(String table, Column[] columns, int batchSize) {
+      super(table, columns);
+      if (batchSize <= 0) throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+      this.batchSize = batchSize;
+   }
+   @Override public String generate() { return new PreparedInsertSql(table, columns).generate(); }
+   @Override public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+   public int execute(Connection connection, Iterable<Object[]> rows) throws SQLException {
+      int inserted = 0;
+      try (PreparedStatement statement = connection.prepareStatement(generate())) {
+         int batched = 0;
+         for (Object[] row : rows) {
+            for (int i = 0; i < columns.length; i++)
+               statement.setObject(i + 1, row[i]);
+            statement.addBatch();
+            if (++batched == batchSize) {
+               inserted += insertedRows(statement.executeBatch());
+               batched = 0;
+            }
+         }
+         if (batched > 0)
+            inserted += insertedRows(statement.executeBatch());
+      }
+      return inserted;
+   }
+   private int insertedRows(int[] updateCounts) {
+      int rows = 0;
+      for (int count : updateCounts)
+         rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+      return rows;
+   }
 }
 
 class Where {
-   public Where(String criteria) {}
-   public String generate() { return ""; }
+   private final String criteria;
+   private final String placeholder;
+   private final Object[] parameters;
+
+   public Where(String criteria) { this(criteria, "", Sql.NO_PARAMETERS); }
+   private Where(String criteria, String placeholder, Object[] parameters) {
+      this.criteria = criteria;
+      this.placeholder = placeholder;
+      this.parameters = parameters;
+   }
+   static Where equalTo(String column, Object value) { return new Where(column, " = ?", new Object[] { value }); }
+   static Where like(String column, String pattern) { return new Where(column, " LIKE ?", new Object[] { pattern }); }
+   public String generate() { return "WHERE " + criteria + placeholder; }
+   public void generate(Appendable sql) throws IOException { sql.append("WHERE ").append(criteria).append(placeholder); }
+   public Object[] parameters() { return parameters; }
+}
+
+class ValuesList {
+   private final Object[] fields;
+   private final Column[] columns;
+
+   public ValuesList(Object[] fields, Column[] columns) {
+      this.fields = fields;
+      this.columns = columns;
+   }
+   public String generate() {
+      StringBuilder values = new StringBuilder();
+      try {
+         generate(values);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return values.toString();
+   }
+   public void generate(Appendable sql) throws IOException {
+      sql.append('(');
+      for (int i = 0; i < columns.length; i++) {
+         if (i > 0) sql.append(", ");
+         Sql.appendLiteral(sql, fields[i]);
+      }
+      sql.append(')');
+   }
 }
 
 class ColumnList {
-   public ColumnList(Column[] columns) {}
-   public String generate() { return ""; }
-}
\ No newline at end of file
+   private final Column[] columns;
+
+   public ColumnList(Column[] columns) { this.columns = columns; }
+   public String generate() {
+      return Sql.cached("columnList", "", columns, () -> {
+         StringBuilder names = new StringBuilder();
+         for (int i = 0; i < columns.length; i++) {
+            if (i > 0) names.append(", ");
+            names.append(columns[i].getName());
+         }
+         return names.toString();
+      });
+   }
+   public void generate(Appendable sql) throws IOException { sql.append(generate()); }
+}
+
+class StatementKey {
+   private final String kind;
+   private final String table;
+   private final String qualifier;
+   private final String[] columnNames;
+
+   StatementKey(String kind, String table, String qualifier, Column[] columns) {
+      this.kind = kind;
+      this.table = table;
+      this.qualifier = qualifier;
+      this.columnNames = new String[columns.length];
+      for (int i = 0; i < columns.length; i++)
+         columnNames[i] = columns[i].getName();
+   }
+
+   @Override public boolean equals(Object other) {
+      if (!(other instanceof StatementKey)) return false;
+      StatementKey that = (StatementKey) other;
+      return kind.equals(that.kind) && table.equals(that.table) && qualifier.equals(that.qualifier)
+         && Arrays.equals(columnNames, that.columnNames);
+   }
+
+   @Override public int hashCode() {
+      return 31 * (31 * (31 * kind.hashCode() + table.hashCode()) + qualifier.hashCode()) + Arrays.hashCode(columnNames);
+   }
+}
+
+class StatementCache {
+   private final Map<StatementKey, String> statements;
+
+   StatementCache(final int maxEntries) {
+      statements = new LinkedHashMap<StatementKey, String>(16, 0.75f, true) {
+         @Override protected boolean removeEldestEntry(Map.Entry<StatementKey, String> eldest) {
+            return size() > maxEntries;
+         }
+      };
+   }
+
+   String get(StatementKey key, Supplier<String> generator) {
+      synchronized (statements) {
+         String statement = statements.get(key);
+         if (statement != null) return statement;
+      }
+      String statement = generator.get();
+      synchronized (statements) {
+         statements.put(key, statement);
+      }
+      return statement;
+   }
+}
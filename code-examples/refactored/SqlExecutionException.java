@@ -0,0 +1,9 @@
+package refactored;
+
+import java.sql.SQLException;
+
+public class SqlExecutionException extends RuntimeException {
+   private static final long serialVersionUID = 1L;
+
+   public SqlExecutionException(String message, SQLException cause) { super(message, cause); }
+}